@@ -1,9 +1,7 @@
 package com.autoxy.catalogo_auto;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class CatalogoAutoApiApplication {
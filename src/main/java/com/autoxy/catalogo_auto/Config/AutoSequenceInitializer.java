@@ -0,0 +1,60 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Model.AutoChangeHead;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allinea la sequenza degli ID delle auto ai dati già presenti.
+ * <p>
+ * I database creati quando l'ID era una colonna IDENTITY contengono già delle auto,
+ * mentre la sequenza viene creata da Hibernate a partire da 1. All'avvio la sequenza
+ * viene spostata oltre l'ID massimo, tenendo conto che l'ottimizzatore pooled
+ * usa gli {@link Auto#ID_ALLOCATION_SIZE} valori che precedono quello letto.
+ * </p>
+ * <p>
+ * Crea inoltre la riga di {@link AutoChangeHead} con cui vengono numerate le modifiche del catalogo,
+ * così chi registra una modifica deve solo bloccarla e mai inserirla in concorrenza con altri.
+ * </p>
+ */
+@Component
+public class AutoSequenceInitializer {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Garantisce che lo schema sia già stato creato o aggiornato da Hibernate.
+     */
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Riavvia la sequenza se il prossimo valore cadrebbe su ID già usati.
+     */
+    @PostConstruct
+    void alignSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM auto", Long.class);
+        Long nextValue = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                Long.class, Auto.ID_SEQUENCE.toUpperCase());
+        if (maxId > 0 && nextValue - Auto.ID_ALLOCATION_SIZE < maxId) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + Auto.ID_SEQUENCE + " RESTART WITH "
+                    + (maxId + Auto.ID_ALLOCATION_SIZE + 1));
+        }
+    }
+
+    /**
+     * Inserisce la riga di {@link AutoChangeHead}, se manca, con l'ultima sequenza già registrata.
+     */
+    @PostConstruct
+    void initChangeHead() {
+        jdbcTemplate.update("INSERT INTO auto_change_head (id, last_sequence)"
+                + " SELECT ?, (SELECT COALESCE(MAX(sequence), 0) FROM auto_change)"
+                + " WHERE NOT EXISTS (SELECT 1 FROM auto_change_head)", AutoChangeHead.ID);
+    }
+}
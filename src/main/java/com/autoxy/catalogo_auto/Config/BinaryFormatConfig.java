@@ -0,0 +1,51 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formati binari delle API del catalogo, negoziati con l'header Accept (e Content-Type per le richieste)
+ * accanto a JSON: CBOR ({@value MediaType#APPLICATION_CBOR_VALUE}) e Smile ({@value #APPLICATION_SMILE_VALUE}).
+ * <p>
+ * Gli stessi DTO vengono scritti senza nomi di campo ripetuti come testo e con numeri e {@code prezzo}
+ * in forma binaria, per i servizi interni che leggono il catalogo ad alta frequenza. I client che non inviano
+ * Accept, o lo inviano per JSON, continuano a ricevere JSON. Le risposte con ETag hanno {@code Vary: Accept},
+ * perché l'ETag è lo stesso in tutti i formati.
+ * </p>
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Convertitore CBOR, con le stesse impostazioni e moduli dell'{@code ObjectMapper} JSON di Spring Boot
+     * (sostituisce quello predefinito di Spring MVC, che non le applica).
+     *
+     * @param builder Builder configurato da Spring Boot (un'istanza nuova per ogni iniezione)
+     * @return Convertitore per {@value MediaType#APPLICATION_CBOR_VALUE}
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Convertitore Smile, configurato come {@link #cborHttpMessageConverter}.
+     *
+     * @param builder Builder configurato da Spring Boot (un'istanza nuova per ogni iniezione)
+     * @return Convertitore per {@value #APPLICATION_SMILE_VALUE}
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
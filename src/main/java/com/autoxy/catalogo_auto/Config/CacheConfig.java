@@ -0,0 +1,112 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configurazione delle cache applicative.
+ * <p>
+ * Ogni cache è una {@link CaffeineCache} limitata per dimensione e durata, con statistiche
+ * di hit/miss/eviction abilitate. Le cache sono transaction-aware: put ed evict
+ * eseguiti dentro una transazione vengono applicati solo dopo il commit, così una rollback
+ * non lascia in cache valori mai scritti sul database. Fa eccezione {@link #AUTO_CACHE},
+ * scritta dopo il commit da {@code AutoCache} confrontando le versioni delle auto.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Cache delle singole auto per ID, usata da {@code AutoService.findById} attraverso {@code AutoCache}.
+     */
+    public static final String AUTO_CACHE = "auto";
+
+    /**
+     * Cache delle pagine di risultati di {@code AutoService.search}.
+     */
+    public static final String SEARCH_CACHE = "autoSearch";
+
+    /**
+     * Cache dei conteggi di {@code AutoService.facets}, con le stesse chiavi di {@link #SEARCH_CACHE}.
+     */
+    public static final String FACETS_CACHE = "autoFacets";
+
+    /**
+     * Cache dei totali delle ricerche con conteggio stimato di {@code AutoService.search}, con chiave
+     * dei soli filtri (vedi {@code AutoSearchKeyGenerator.countKey}): non viene invalidata dalle scritture
+     * ed esce dalla cache per scadenza.
+     */
+    public static final String SEARCH_COUNT_CACHE = "autoSearchCount";
+
+    /**
+     * Stima dell'occupazione in memoria di una riga di risultato, usata per pesare le pagine in cache.
+     */
+    private static final int ESTIMATED_BYTES_PER_ROW = 256;
+
+    /**
+     * Crea il {@link CacheManager} con le cache dell'applicazione.
+     *
+     * @param autoMaximumSize Numero massimo di auto in cache
+     * @param autoExpireAfterWrite Durata massima di una voce dalla scrittura
+     * @param searchMaximumMemory Memoria massima stimata occupata dalle pagine di ricerca in cache (0 la disattiva)
+     * @param searchExpireAfterWrite Durata massima di una pagina di ricerca dalla scrittura
+     * @param facetsMaximumSize Numero massimo di conteggi in cache
+     * @param searchCountMaximumSize Numero massimo di totali stimati in cache
+     * @param searchCountExpireAfterWrite Durata massima di un totale stimato, cioè quanto può essere vecchia la stima
+     * @return {@link CacheManager} con le cache dell'applicazione
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${catalogo.cache.auto.maximum-size:10000}") long autoMaximumSize,
+                                     @Value("${catalogo.cache.auto.expire-after-write:10m}") Duration autoExpireAfterWrite,
+                                     @Value("${catalogo.cache.search.maximum-memory:64MB}") DataSize searchMaximumMemory,
+                                     @Value("${catalogo.cache.search.expire-after-write:10m}") Duration searchExpireAfterWrite,
+                                     @Value("${catalogo.cache.facets.maximum-size:1000}") long facetsMaximumSize,
+                                     @Value("${catalogo.cache.search-count.maximum-size:1000}") long searchCountMaximumSize,
+                                     @Value("${catalogo.cache.search-count.expire-after-write:1m}") Duration searchCountExpireAfterWrite) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CaffeineCache(AUTO_CACHE, Caffeine.newBuilder()
+                        .maximumSize(autoMaximumSize)
+                        .expireAfterWrite(autoExpireAfterWrite)
+                        .recordStats()
+                        .build()),
+                searchMaximumMemory.toBytes() > 0
+                        ? new TransactionAwareCacheDecorator(new CaffeineCache(SEARCH_CACHE, Caffeine.newBuilder()
+                                .maximumWeight(searchMaximumMemory.toBytes())
+                                .weigher(CacheConfig::estimateBytes)
+                                .expireAfterWrite(searchExpireAfterWrite)
+                                .recordStats()
+                                .build()))
+                        : new NoOpCache(SEARCH_CACHE),
+                new TransactionAwareCacheDecorator(new CaffeineCache(FACETS_CACHE, Caffeine.newBuilder()
+                        .maximumSize(facetsMaximumSize)
+                        .expireAfterWrite(searchExpireAfterWrite)
+                        .recordStats()
+                        .build())),
+                new TransactionAwareCacheDecorator(new CaffeineCache(SEARCH_COUNT_CACHE, Caffeine.newBuilder()
+                        .maximumSize(searchCountMaximumSize)
+                        .expireAfterWrite(searchCountExpireAfterWrite)
+                        .recordStats()
+                        .build()))));
+        return cacheManager;
+    }
+
+    private static int estimateBytes(Object key, Object value) {
+        int rows = value instanceof Page<?> page ? page.getNumberOfElements() : 1;
+        return ESTIMATED_BYTES_PER_ROW * (rows + 1);
+    }
+}
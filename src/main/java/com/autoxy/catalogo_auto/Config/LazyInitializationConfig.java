@@ -0,0 +1,27 @@
+package com.autoxy.catalogo_auto.Config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * Bean da creare all'avvio anche con {@code spring.main.lazy-initialization=true} (profilo {@code faststart}).
+ * <p>
+ * L'{@code EntityManagerFactory} resta all'avvio perché un database irraggiungibile o uno schema non aggiornabile
+ * devono far fallire l'avvio e non la prima richiesta; {@link AutoSequenceInitializer} perché nessun bean
+ * dipende da lui e, creato in modo lazy, non allineerebbe mai le sequenze. Senza inizializzazione lazy
+ * il filtro non viene usato.
+ * </p>
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    /**
+     * @return Filtro dei bean esclusi dall'inizializzazione lazy
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(AbstractEntityManagerFactoryBean.class, AutoSequenceInitializer.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.autoxy.catalogo_auto.Config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modalità diagnostica delle query SQL, attiva con {@code catalogo.diagnostics.enabled=true}
+ * (profilo {@code diagnostics}).
+ * <p>
+ * Il {@link DataSource} viene avvolto da un proxy di datasource-proxy che conta le istruzioni eseguite
+ * per thread e registra con i valori dei parametri le query più lente di {@code catalogo.diagnostics.slow-query}.
+ * Un filtro conta le query di ogni richiesta alle API delle auto e segnala nel log quelle oltre
+ * {@code catalogo.diagnostics.max-queries}, con il dettaglio per tipo di istruzione: un N+1 o una query
+ * di conteggio in più emergono senza leggere il log SQL.
+ * </p>
+ * <p>
+ * Il conteggio è per thread: comprende le query eseguite sul thread della richiesta, non quelle
+ * dell'export in streaming, del long-poll o dell'API reattiva, eseguite su altri thread.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalogo.diagnostics.enabled", havingValue = "true")
+public class QueryDiagnosticsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryDiagnosticsConfig.class);
+
+    /**
+     * Avvolge ogni {@link DataSource} del contesto con il proxy che conta le query e registra quelle lente.
+     * I DataSource che delegano ad altri bean (l'instradamento verso la replica, vedi {@link ReplicaDataSourceConfig})
+     * non vengono avvolti, per non contare due volte le stesse query.
+     * È statico perché i {@link BeanPostProcessor} vengono creati prima degli altri bean della configurazione.
+     *
+     * @param slowQuery Durata oltre la quale una query viene registrata nel log con i suoi parametri
+     * @return Post-processor dei DataSource
+     */
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(
+            @Value("${catalogo.diagnostics.slow-query:200ms}") Duration slowQuery) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof DelegatingDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .countQuery()
+                        .logSlowQueryBySlf4j(slowQuery.toMillis(), TimeUnit.MILLISECONDS, SLF4JLogLevel.WARN)
+                        .multiline()
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * Filtro che conta le query delle richieste alle API delle auto.
+     * Il conteggio viene azzerato all'inizio di ogni richiesta e resta leggibile al termine
+     * sullo stesso thread (vedi i test con MockMvc).
+     *
+     * @param maxQueries Numero di query oltre il quale la richiesta viene segnalata nel log
+     * @return Registrazione del filtro su {@code /api/auto/*}
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> queryCountFilter(
+            @Value("${catalogo.diagnostics.max-queries:10}") int maxQueries) {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                QueryCountHolder.clear();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    QueryCount count = QueryCountHolder.getGrandTotal();
+                    if (count.getTotal() > maxQueries) {
+                        log.warn("{} {}: {} query SQL (soglia {}): {} select, {} insert, {} update, {} delete, {} altre",
+                                request.getMethod(), request.getRequestURI(), count.getTotal(), maxQueries,
+                                count.getSelect(), count.getInsert(), count.getUpdate(), count.getDelete(), count.getOther());
+                    }
+                }
+            }
+        });
+        registration.addUrlPatterns("/api/auto/*");
+        return registration;
+    }
+}
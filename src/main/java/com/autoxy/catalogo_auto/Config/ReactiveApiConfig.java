@@ -0,0 +1,87 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.autoxy.catalogo_auto.Controller.AutoReactiveHandler;
+import com.autoxy.catalogo_auto.Exception.ReactiveExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+
+/**
+ * Configurazione dell'API reattiva di sola lettura, servita sotto {@value #BASE_PATH}.
+ * <p>
+ * Le rotte WebFlux vengono registrate in Tomcat come servlet separata, accanto alla DispatcherServlet
+ * di Spring MVC. La servlet usa l'I/O non bloccante delle Servlet API: mentre un client lento riceve
+ * una lista, nessun thread resta in attesa e le auto successive vengono lette solo quando il client
+ * è pronto a riceverle.
+ * </p>
+ */
+@Configuration
+public class ReactiveApiConfig {
+
+    public static final String BASE_PATH = "/api/reactive";
+
+    /**
+     * Codec JSON dell'API reattiva, con lo stesso {@link ObjectMapper} di Spring MVC.
+     *
+     * @param objectMapper ObjectMapper configurato da Spring Boot
+     * @return Strategie per la lettura e la scrittura delle risposte
+     */
+    @Bean
+    public HandlerStrategies reactiveHandlerStrategies(ObjectMapper objectMapper) {
+        return HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+    }
+
+    /**
+     * Rotte dell'API reattiva, relative a {@value #BASE_PATH}.
+     *
+     * @param handler Handler delle richieste sulle auto
+     * @return Rotte di sola lettura del catalogo
+     */
+    @Bean
+    public RouterFunction<ServerResponse> reactiveAutoRoutes(AutoReactiveHandler handler) {
+        return RouterFunctions.route()
+                .GET("/auto", handler::findAll)
+                .GET("/auto/search", handler::search)
+                .GET("/auto/{id}", handler::findById)
+                .build();
+    }
+
+    /**
+     * Registra le rotte come servlet non bloccante su {@value #BASE_PATH}{@code /*}.
+     *
+     * @param reactiveAutoRoutes Rotte dell'API reattiva
+     * @param reactiveHandlerStrategies Codec delle risposte
+     * @param reactiveExceptionHandler Gestione degli errori
+     * @return Registrazione della servlet
+     */
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveApiServlet(
+            RouterFunction<ServerResponse> reactiveAutoRoutes,
+            HandlerStrategies reactiveHandlerStrategies,
+            ReactiveExceptionHandler reactiveExceptionHandler) {
+        HttpHandler httpHandler = WebHttpHandlerBuilder
+                .webHandler(RouterFunctions.toWebHandler(reactiveAutoRoutes, reactiveHandlerStrategies))
+                .exceptionHandler(reactiveExceptionHandler)
+                .build();
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(new ServletHttpHandlerAdapter(httpHandler), BASE_PATH + "/*");
+        registration.setName("reactiveApiServlet");
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+}
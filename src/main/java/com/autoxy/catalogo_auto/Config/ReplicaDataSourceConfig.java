@@ -0,0 +1,115 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Instradamento delle connessioni tra database primario e replica di lettura, attivo se è configurato
+ * {@code catalogo.datasource.replica.url}.
+ * <p>
+ * Il {@link DataSource} dell'applicazione è un {@link LazyConnectionDataSourceProxy}: la connessione fisica
+ * viene presa solo alla prima istruzione, quando la transazione ha già dichiarato se è di sola lettura.
+ * Le transazioni {@code readOnly} (lista, dettaglio, ricerca, conteggi ed export, vedi i repository) usano
+ * il pool della replica, tutte le altre, comprese le letture dentro una scrittura e quelle dell'indice di ricerca
+ * in memoria, il pool del primario ({@code spring.datasource.*}). Per {@code catalogo.datasource.replica.max-lag}
+ * dopo ogni modifica confermata anche le letture vanno al primario (vedi {@link ReplicaLagGuard}).
+ * </p>
+ * <p>
+ * Lo schema viene creato e aggiornato da Hibernate solo sul primario: la replica lo riceve con la replica dei dati.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalogo.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Pool del database primario, configurato da {@code spring.datasource.*} e {@code spring.datasource.hikari.*}.
+     * Non è candidato all'iniezione per tipo: l'applicazione usa il {@link #dataSource} instradato.
+     *
+     * @param properties Proprietà {@code spring.datasource}
+     * @return Pool del primario
+     */
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Proprietà di connessione della replica ({@code catalogo.datasource.replica.url}, {@code username}, {@code password}).
+     *
+     * @return Proprietà della replica
+     */
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("catalogo.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * Pool della replica di lettura, configurato anche da {@code catalogo.datasource.replica.hikari.*}.
+     *
+     * @param properties Proprietà della replica
+     * @return Pool della replica
+     */
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("catalogo.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * @param maxLag Durata dopo una modifica confermata in cui le letture vanno al primario
+     * @return Protezione dal ritardo della replica
+     */
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(@Value("${catalogo.datasource.replica.max-lag:1s}") Duration maxLag) {
+        return new ReplicaLagGuard(maxLag);
+    }
+
+    /**
+     * {@link DataSource} dell'applicazione: primario per le scritture, replica per le transazioni di sola lettura
+     * se {@link ReplicaLagGuard} non indica una modifica troppo recente.
+     *
+     * @param primary Pool del primario
+     * @param replica Pool della replica
+     * @param guard Protezione dal ritardo della replica
+     * @return DataSource instradato
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagGuard guard) {
+        AbstractRoutingDataSource readOnly = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return guard.replicaMayBeStale() ? "primary" : "replica";
+            }
+        };
+        readOnly.setTargetDataSources(Map.of("primary", primary, "replica", replica));
+        readOnly.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(readOnly);
+        return dataSource;
+    }
+}
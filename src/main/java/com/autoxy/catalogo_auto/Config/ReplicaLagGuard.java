@@ -0,0 +1,55 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Protezione dal ritardo della replica di lettura (vedi {@link ReplicaDataSourceConfig}).
+ * <p>
+ * Registra l'istante dell'ultima modifica confermata del catalogo: per {@code catalogo.datasource.replica.max-lag}
+ * da quel momento la replica potrebbe non averla ancora ricevuta, quindi anche le letture vanno al database primario.
+ * Un client che rilegge subito ciò che ha scritto vede così la propria modifica (read-your-writes).
+ * La protezione è globale: dopo una scrittura tutte le letture vanno al primario per la durata indicata.
+ * </p>
+ */
+public class ReplicaLagGuard {
+
+    /**
+     * Ritardo massimo atteso della replica; con zero le letture vanno sempre alla replica.
+     */
+    Duration maxLag;
+
+    private volatile long lastWriteNanos;
+    private volatile boolean written;
+
+    public ReplicaLagGuard(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    /**
+     * Registra una modifica confermata, dopo il commit della transazione che l'ha pubblicata.
+     * Il listener viene eseguito per primo: gli altri listener che rileggono il catalogo dopo il commit
+     * vedono già la modifica registrata e leggono dal primario.
+     *
+     * @param event Modifica del catalogo
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutoChanged(AutoChangedEvent event) {
+        lastWriteNanos = System.nanoTime();
+        written = true;
+    }
+
+    /**
+     * Indica se la replica può ancora essere indietro rispetto all'ultima modifica confermata.
+     *
+     * @return true se l'ultima modifica è più recente di {@code max-lag}
+     */
+    public boolean replicaMayBeStale() {
+        return written && System.nanoTime() - lastWriteNanos < maxLag.toNanos();
+    }
+}
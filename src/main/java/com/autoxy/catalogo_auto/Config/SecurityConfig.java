@@ -24,8 +24,10 @@ public class SecurityConfig {
      * Configura la catena dei filtri di sicurezza per gestire l'autenticazione e le autorizzazioni degli utenti.
      * <p>
      * - Permette l'accesso libero alla console H2.<br>
-     * - Permette l'accesso in lettura (GET, POST, PUT, DELETE) alle API delle auto a tutti.<br>
+     * - Permette l'accesso in lettura (GET, POST, PUT, PATCH, DELETE) alle API delle auto a tutti.<br>
+     * - Permette l'accesso in lettura (GET) all'API reattiva a tutti.<br>
      * - Permette l'accesso alla documentazione swagger e Api-docs
+     * - Permette la lettura (GET) di health e metriche Prometheus dell'actuator, gli unici endpoint esposti.<br>
      * - Richiede autenticazione per qualsiasi altra richiesta.<br>
      * - Disabilita CSRF per facilitare le richieste REST.<br>
      * - Abilita il supporto ai frame per la console H2.<br>
@@ -44,9 +46,12 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/auto/**").permitAll() // GET aperto a tutti
                         .requestMatchers(HttpMethod.POST, "/api/auto/**").permitAll() // POST aperto a tutti
                         .requestMatchers(HttpMethod.PUT, "/api/auto/**").permitAll() // PUT aperto a tutti
+                        .requestMatchers(HttpMethod.PATCH, "/api/auto/**").permitAll() // PATCH aperto a tutti
                         .requestMatchers(HttpMethod.DELETE, "/api/auto/**").permitAll() // DELETE aperto a tutti
+                        .requestMatchers(HttpMethod.GET, "/api/reactive/**").permitAll() // API reattiva in sola lettura
                         .requestMatchers("/swagger-ui/**").permitAll() // Permette l'accesso console swagger
                         .requestMatchers("/api-docs/**").permitAll() // Permette l'accesso alla documentazione API
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll() // Health e metriche
                         .anyRequest().authenticated() // Richiede autenticazione per qualsiasi altra richiesta
                 )
                 .csrf(AbstractHttpConfigurer::disable) // Disabilita la protezione CSRF per le richieste REST
@@ -1,22 +1,51 @@
 package com.autoxy.catalogo_auto.Controller;
 
+import com.autoxy.catalogo_auto.DTO.AutoBulkResultDTO;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoChangesDTO;
+import com.autoxy.catalogo_auto.DTO.AutoFacetsDTO;
+import com.autoxy.catalogo_auto.DTO.AutoImportReportDTO;
+import com.autoxy.catalogo_auto.DTO.AutoKeysetPageDTO;
 import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRepriceRequestDTO;
 import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
-import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Service.AutoChangeService;
+import com.autoxy.catalogo_auto.Service.AutoImportService;
 import com.autoxy.catalogo_auto.Service.AutoService;
+import com.autoxy.catalogo_auto.Service.CatalogVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Controller REST per la gestione delle automobili.
@@ -30,42 +59,128 @@ public class AutoController {
     @Autowired
     private AutoService autoService;
 
+    @Autowired
+    private AutoImportService autoImportService;
+
+    @Autowired
+    private AutoChangeService autoChangeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     /**
      * Recupera tutte le auto disponibili.
+     * Richiesta condizionata come le ricerche (vedi {@link #notModified}).
      *
-     * @return Una lista di {@link AutoResponseDTO} rappresentanti tutte le auto
+     * @param fields Campi da restituire separati da virgola (ad esempio {@code id,marca,prezzo}); se manca, tutti
+     * @param request Richiesta, per If-None-Match e If-Modified-Since
+     * @return Una lista di {@link AutoResponseDTO} rappresentanti tutte le auto, null con risposta 304
+     * @throws InvalidQueryParameterException Se un campo non appartiene ad {@link AutoResponseDTO}
      * @apiNote GET /api/auto
      */
     @GetMapping
     @Operation(summary = "Ottiene la lista di tutte le auto")
     @ApiResponses(value ={
             @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Not Modified"),
             @ApiResponse(responseCode = "400", description = "Bad Request"),
             @ApiResponse(responseCode = "500", description = "Server Error")
     })
 
-    public List<AutoResponseDTO> getAllAuto() {
-        return autoService.findAll();
+    public List<AutoResponseDTO> getAllAuto(@RequestParam(required = false) List<String> fields,
+                                            ServletWebRequest request) {
+        Set<String> selected = AutoResponseDTO.fields(fields);
+        if (notModified(request)) {
+            return null;
+        }
+        return autoService.findAll(selected);
+    }
+
+    /**
+     * Esporta l'intero catalogo in streaming, una auto JSON per riga (NDJSON).
+     * Le auto vengono lette a blocchi e scritte man mano sulla risposta, quindi il primo byte
+     * parte prima della fine della lettura e la memoria non cresce con la dimensione del catalogo.
+     *
+     * @return Corpo della risposta scritto in streaming
+     * @apiNote GET /api/auto/export
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Esporta tutte le auto in streaming (NDJSON)")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public ResponseEntity<StreamingResponseBody> exportAuto() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<AutoResponseDTO> autos = autoService.streamAll()) {
+                autos.forEach(auto -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(auto));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Feed delle modifiche del catalogo (creazioni, aggiornamenti, eliminazioni) in ordine di sequenza.
+     * Il consumatore passa come {@code after} il cursore della risposta precedente e riceve solo le modifiche
+     * successive. Con {@code wait} maggiore di 0, se non ci sono modifiche la richiesta resta aperta
+     * fino alla prossima modifica confermata o alla scadenza dell'attesa (long-poll), senza occupare un thread.
+     *
+     * @param after Ultima sequenza già letta (0 per iniziare dalla prima modifica)
+     * @param limit Numero massimo di modifiche nella risposta
+     * @param wait Secondi di attesa se non ci sono modifiche (0 per rispondere subito)
+     * @return Modifiche successive al cursore, con il cursore per la richiesta successiva
+     * @apiNote GET /api/auto/changes
+     */
+    @GetMapping("/changes")
+    @Operation(summary = "Legge le modifiche del catalogo successive al cursore, con attesa opzionale (long-poll)")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public CompletableFuture<AutoChangesDTO> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0") int wait) {
+
+        return autoChangeService.awaitChanges(after, limit, Duration.ofSeconds(wait));
     }
 
     /**
      * Recupera un'auto specifica tramite il suo ID.
+     * La risposta ha come ETag la versione dell'auto: con {@code If-None-Match} uguale alla versione attuale
+     * la risposta è 304 senza corpo, quindi senza serializzazione. L'ETag è lo stesso per JSON, CBOR e Smile,
+     * quindi la risposta ha {@code Vary: Accept} (vedi {@link com.autoxy.catalogo_auto.Config.BinaryFormatConfig}).
      *
      * @param id Identificativo univoco dell'auto
-     * @return Un {@link Optional} contenente l'{@link AutoResponseDTO} se l'auto è trovata,
-     * altrimenti un Optional vuoto
+     * @return L'{@link AutoResponseDTO} dell'auto trovata, con l'ETag della sua versione
+     * @throws NoSuchElementException Se l'auto con l'ID specificato non esiste
      * @apiNote GET /api/auto/{id}
      */
     @GetMapping("/{id}")
     @Operation(summary = "Ottieni auto per ID")
     @ApiResponses(value ={
             @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Not Modified"),
             @ApiResponse(responseCode = "400", description = "Bad Request"),
             @ApiResponse(responseCode = "404", description = "Not Found"),
             @ApiResponse(responseCode = "500", description = "Server Error")
     })
-    public AutoResponseDTO getAutoById(@PathVariable Long id) {
-        return autoService.findById(id);
+    public ResponseEntity<AutoResponseDTO> getAutoById(@PathVariable Long id) {
+        AutoResponseDTO auto = autoService.findById(id);
+        return ResponseEntity.ok().eTag(String.valueOf(auto.getVersion())).varyBy(HttpHeaders.ACCEPT).body(auto);
     }
 
     /**
@@ -86,12 +201,54 @@ public class AutoController {
         return autoService.save(autoRequestDTO);
     }
 
+    /**
+     * Importa in blocco un array JSON di auto, letto in streaming e salvato a batch.
+     * Le righe non valide vengono scartate e riportate nell'esito, senza bloccare le altre.
+     *
+     * @param input Corpo della richiesta con l'array JSON
+     * @return Esito dell'importazione con gli errori di ogni batch
+     * @throws IOException Se il corpo della richiesta non può essere letto
+     * @apiNote POST /api/auto/import (Content-Type: application/json)
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Importazione massiva di auto da array JSON")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public AutoImportReportDTO importAutoJson(InputStream input) throws IOException {
+        return autoImportService.importJson(input);
+    }
+
+    /**
+     * Importa in blocco un file CSV di auto con intestazione {@code marca,modello,annoProduzione,prezzo,stato},
+     * letto in streaming e salvato a batch.
+     *
+     * @param input Corpo della richiesta con il file CSV
+     * @return Esito dell'importazione con gli errori di ogni batch
+     * @throws IOException Se il corpo della richiesta non può essere letto
+     * @apiNote POST /api/auto/import (Content-Type: text/csv)
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(summary = "Importazione massiva di auto da file CSV")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public AutoImportReportDTO importAutoCsv(InputStream input) throws IOException {
+        return autoImportService.importCsv(input);
+    }
+
     /**
      * Aggiorna i dati di un'auto esistente.
      *
+     * Con {@code If-Match} l'aggiornamento viene applicato solo se la versione attuale è tra gli ETag indicati;
+     * senza l'header viene applicato a qualunque versione, ma mai sopra una modifica concorrente.
+     *
      * @param id Identificativo univoco dell'auto da aggiornare
      * @param autoRequestDTO DTO contenente i nuovi dati dell'auto
-     * @return L'{@link AutoResponseDTO} dell'auto aggiornata
+     * @param ifMatch ETag (versioni) a cui l'aggiornamento può essere applicato, {@code *} per qualunque versione
+     * @return L'{@link AutoResponseDTO} dell'auto aggiornata, con l'ETag della nuova versione
      * @throws NoSuchElementException Se l'auto con l'ID specificato non esiste
      * @apiNote PUT /api/auto/{id}
      */
@@ -101,10 +258,74 @@ public class AutoController {
             @ApiResponse(responseCode = "200", description = "OK"),
             @ApiResponse(responseCode = "400", description = "Bad Request"),
             @ApiResponse(responseCode = "404", description = "Not Found"),
+            @ApiResponse(responseCode = "412", description = "Precondition Failed"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public ResponseEntity<AutoResponseDTO> updateAuto(@PathVariable Long id, @Valid @RequestBody AutoRequestDTO autoRequestDTO,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AutoResponseDTO auto = autoService.update(id, autoRequestDTO, expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(String.valueOf(auto.getVersion())).varyBy(HttpHeaders.ACCEPT).body(auto);
+    }
+
+    /**
+     * Versioni indicate dall'header {@code If-Match}: null se l'header manca o contiene {@code *}.
+     * If-Match usa il confronto forte, quindi ETag deboli o non numerici non corrispondono a nessuna versione.
+     */
+    private static List<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> eTags = ETag.parse(ifMatch);
+        if (eTags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (ETag eTag : eTags) {
+            if (!eTag.weak()) {
+                try {
+                    versions.add(Long.valueOf(eTag.tag()));
+                } catch (NumberFormatException e) {
+                    // ETag non generato da questa API: non corrisponde a nessuna versione
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Imposta lo stato di più auto con un'unica operazione (ad esempio un intero lotto venduto).
+     *
+     * @param request DTO con gli ID delle auto e il nuovo stato
+     * @return Numero di auto modificate
+     * @apiNote PATCH /api/auto/stato
+     */
+    @PatchMapping("/stato")
+    @Operation(summary = "Cambio di stato massivo per una lista di ID")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
             @ApiResponse(responseCode = "500", description = "Server Error")
     })
-    public AutoResponseDTO updateAuto(@PathVariable Long id, @Valid @RequestBody AutoRequestDTO autoRequestDTO) {
-        return autoService.update(id, autoRequestDTO);
+    public AutoBulkResultDTO updateStato(@Valid @RequestBody AutoBulkStatoRequestDTO request) {
+        return autoService.updateStato(request);
+    }
+
+    /**
+     * Varia in percentuale il prezzo di tutte le auto di una marca con un'unica operazione.
+     *
+     * @param request DTO con la marca e la percentuale di variazione (negativa per uno sconto)
+     * @return Numero di auto modificate
+     * @apiNote PATCH /api/auto/prezzo
+     */
+    @PatchMapping("/prezzo")
+    @Operation(summary = "Variazione percentuale del prezzo di tutte le auto di una marca")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public AutoBulkResultDTO repriceAuto(@Valid @RequestBody AutoRepriceRequestDTO request) {
+        return autoService.reprice(request);
     }
 
     /**
@@ -127,28 +348,114 @@ public class AutoController {
     /**
      * Endpoint per la ricerca di auto con filtri opzionali.
      *
-     * @param marca Marca dell'auto (case-insensitive). Se null, ignora il filtro.
-     * @param prezzoMin Prezzo minimo. Se null, ignora il filtro.
-     * @param prezzoMax Prezzo massimo. Se null, ignora il filtro.
-     * @param stato Stato dell'auto. Se null, ignora il filtro.
+     * @param criteria Filtri della ricerca (marca, modello, annoMin, annoMax, prezzoMin, prezzoMax, stato),
+     *                 letti dai parametri della richiesta. Se un parametro manca, il filtro non viene applicato.
      * @param pageable Paginazione e ordinamento dei risultati.
-     * @return Pagina di risultati contenente DTO delle auto che soddisfano i criteri.
+     * @param conteggio Calcolo del totale: ESATTO (predefinito), STIMATO (conteggio in cache, può non comprendere
+     *                  le ultime scritture) o NESSUNO (si sa solo se esiste una pagina successiva). Con gli ultimi due
+     *                  la risposta contiene {@code totalApproximate}, true se il totale non è esatto.
+     * @param fields Campi delle auto da restituire separati da virgola; se manca, tutti. L'ordinamento può usare
+     *               anche campi non richiesti.
+     * @param request Richiesta, per If-None-Match e If-Modified-Since (vedi {@link #notModified})
+     * @return Pagina di risultati contenente DTO delle auto che soddisfano i criteri, null con risposta 304.
+     * @throws InvalidQueryParameterException Se un campo non appartiene ad {@link AutoResponseDTO}
      */
     @GetMapping("/search")
-    @Operation(summary = "Ricerca auto con parametri opzionali marca,prezzoMin,prezzoMax,stato con Pageable")
+    @Operation(summary = "Ricerca auto con parametri opzionali marca,modello,annoMin,annoMax,prezzoMin,prezzoMax,stato con Pageable")
     @ApiResponses(value ={
             @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Not Modified"),
             @ApiResponse(responseCode = "400", description = "Bad Request"),
             @ApiResponse(responseCode = "404", description = "Not Found"),
             @ApiResponse(responseCode = "500", description = "Server Error")
     })
-    public Page<AutoResponseDTO> searchAuto(
-            @RequestParam(required = false) String marca,
-            @RequestParam(required = false) BigDecimal prezzoMin,
-            @RequestParam(required = false) BigDecimal prezzoMax,
-            @RequestParam(required = false) StatoAuto stato,
-            Pageable pageable) {
+    public Page<AutoResponseDTO> searchAuto(@ParameterObject AutoSearchCriteriaDTO criteria, Pageable pageable,
+                                            @RequestParam(defaultValue = "ESATTO") ConteggioTotale conteggio,
+                                            @RequestParam(required = false) List<String> fields,
+                                            ServletWebRequest request) {
+        Set<String> selected = AutoResponseDTO.fields(fields);
+        if (notModified(request)) {
+            return null;
+        }
+        return autoService.search(criteria, pageable, conteggio, selected);
+    }
 
-        return autoService.search(marca, prezzoMin, prezzoMax, stato, pageable);
+    /**
+     * Endpoint per i conteggi delle auto che soddisfano i filtri, per marca, stato e fascia di prezzo.
+     * Sostituisce una ricerca per ogni valore di filtro: i conteggi sono calcolati in un solo passaggio.
+     *
+     * @param criteria Filtri della ricerca, come per {@code /search}.
+     * @param prezzoBuckets Limiti delle fasce di prezzo in ordine crescente (ad esempio {@code 10000,20000}:
+     *                      fino a 10000 escluso, da 10000 a 20000 escluso, da 20000). Se manca si usano quelli configurati.
+     * @param request Richiesta, per If-None-Match e If-Modified-Since (vedi {@link #notModified})
+     * @return Totale e conteggi per marca, stato e fascia di prezzo, null con risposta 304.
+     * @apiNote GET /api/auto/search/facets
+     */
+    @GetMapping("/search/facets")
+    @Operation(summary = "Conteggi per marca, stato e fascia di prezzo delle auto che soddisfano i parametri opzionali "
+            + "marca,modello,annoMin,annoMax,prezzoMin,prezzoMax,stato")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Not Modified"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public AutoFacetsDTO facetsAuto(@ParameterObject AutoSearchCriteriaDTO criteria,
+                                    @RequestParam(required = false) List<BigDecimal> prezzoBuckets,
+                                    ServletWebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return autoService.facets(criteria, prezzoBuckets);
+    }
+
+    /**
+     * Endpoint per la ricerca di auto con filtri opzionali e paginazione keyset.
+     * Al posto del numero di pagina si passa il cursore restituito dalla pagina precedente:
+     * ogni pagina costa uguale indipendentemente dalla profondità e non viene calcolato il totale.
+     *
+     * @param criteria Filtri della ricerca, come per {@code /search}.
+     * @param sort Campo di ordinamento (id, marca, modello, annoProduzione, prezzo). Ignorato se è presente il cursore.
+     * @param direction Direzione di ordinamento (ASC, DESC). Ignorata se è presente il cursore.
+     * @param size Numero massimo di auto per pagina.
+     * @param cursor Cursore della pagina successiva restituito dalla chiamata precedente.
+     * @return Pagina di risultati con il cursore per la pagina successiva.
+     * @apiNote GET /api/auto/search/keyset
+     */
+    @GetMapping("/search/keyset")
+    @Operation(summary = "Ricerca auto con parametri opzionali marca,modello,annoMin,annoMax,prezzoMin,prezzoMax,stato "
+            + "con paginazione keyset")
+    @ApiResponses(value ={
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "404", description = "Not Found"),
+            @ApiResponse(responseCode = "500", description = "Server Error")
+    })
+    public AutoKeysetPageDTO searchAutoKeyset(
+            @ParameterObject AutoSearchCriteriaDTO criteria,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+
+        return autoService.searchKeyset(criteria, sort, direction, size, cursor);
+    }
+
+    /**
+     * Gestisce una lettura condizionata del catalogo. ETag e Last-Modified vengono da {@link CatalogVersion}
+     * e cambiano solo dopo il commit di una modifica: si calcolano prima di leggere le auto, quindi se il client
+     * ha già la generazione corrente la risposta è 304 senza interrogare né cache né database.
+     * {@code Cache-Control: no-cache} fa rivalidare il client a ogni richiesta, invece di riusare la risposta
+     * per una durata stimata da Last-Modified. L'ETag non dipende dal formato negoziato, quindi
+     * {@code Vary: Accept} impedisce a una cache condivisa di restituire a un client il corpo (o il 304)
+     * di un altro formato.
+     *
+     * @param request Richiesta corrente
+     * @return true se la risposta è già 304 e il metodo deve restituire null
+     */
+    private boolean notModified(ServletWebRequest request) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return request.checkNotModified(catalogVersion.eTag(), catalogVersion.lastModified());
     }
-}
\ No newline at end of file
+}
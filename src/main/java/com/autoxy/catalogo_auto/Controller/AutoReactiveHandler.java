@@ -0,0 +1,90 @@
+package com.autoxy.catalogo_auto.Controller;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Service.ReactiveAutoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Handler delle rotte dell'API reattiva di sola lettura ({@code /api/reactive/auto}).
+ * Le liste vengono restituite in NDJSON, un'auto per riga: ogni riga viene scritta quando il client
+ * è pronto a riceverla e solo allora il service legge dal database le auto successive.
+ */
+@Component
+public class AutoReactiveHandler {
+
+    @Autowired
+    ReactiveAutoService reactiveAutoService;
+
+    /**
+     * Recupera un'auto per ID.
+     *
+     * @param request Richiesta con la variabile di percorso {@code id}
+     * @return Risposta con l'auto in JSON
+     * @apiNote GET /api/reactive/auto/{id}
+     */
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return reactiveAutoService.findById(id)
+                .flatMap(auto -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(auto));
+    }
+
+    /**
+     * Restituisce l'intero catalogo ordinato per ID.
+     *
+     * @param request Richiesta senza parametri
+     * @return Risposta NDJSON con tutte le auto
+     * @apiNote GET /api/reactive/auto
+     */
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reactiveAutoService.findAll(), AutoResponseDTO.class);
+    }
+
+    /**
+     * Ricerca auto con gli stessi filtri di {@code /api/auto/search} (marca, modello, annoMin, annoMax,
+     * prezzoMin, prezzoMax, stato), ordinamento {@code sort}/{@code direction} (default id, ASC)
+     * e {@code size} auto lette dal database per ogni pagina (default 100).
+     *
+     * @param request Richiesta con i filtri come parametri di query
+     * @return Risposta NDJSON con tutte le auto trovate
+     * @apiNote GET /api/reactive/auto/search
+     */
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String sort = request.queryParam("sort").orElse("id");
+        Sort.Direction direction = queryParam(request, "direction", "ASC", Sort.Direction::fromString);
+        int size = queryParam(request, "size", "100", Integer::valueOf);
+        // La risposta parte solo dopo la prima pagina: un errore su di essa (nessun risultato, ordinamento
+        // non valido) diventa la risposta di errore invece di interrompere una risposta già avviata
+        return request.bind(AutoSearchCriteriaDTO.class)
+                .flatMap(criteria -> reactiveAutoService.search(criteria, sort, direction, size)
+                        .switchOnFirst((first, autos) -> first.hasError()
+                                ? Mono.error(first.getThrowable())
+                                : ServerResponse.ok()
+                                        .contentType(MediaType.APPLICATION_NDJSON)
+                                        .body(autos, AutoResponseDTO.class), false)
+                        .singleOrEmpty());
+    }
+
+    /**
+     * Converte un parametro di query, restituendo un errore 400 se il valore non è valido.
+     */
+    private static <T> T queryParam(ServerRequest request, String name, String defaultValue, Function<String, T> parser) {
+        String value = request.queryParam(name).orElse(defaultValue);
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryParameterException("Valore non valido per " + name + ": " + value, e);
+        }
+    }
+}
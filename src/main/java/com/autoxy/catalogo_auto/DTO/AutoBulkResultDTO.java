@@ -0,0 +1,17 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * DTO con l'esito di un'operazione massiva: il numero di auto modificate.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoBulkResultDTO {
+    private int updated;
+}
@@ -0,0 +1,29 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * DTO per il cambio di stato di più auto con un'unica operazione.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoBulkStatoRequestDTO {
+    @NotEmpty(message = "Indicare almeno un ID")
+    @Size(max = 10000, message = "Al massimo 10000 ID per richiesta")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "Lo stato è obbligatorio")
+    @Pattern(regexp = "DISPONIBILE|VENDUTA", message = "Lo stato deve essere 'DISPONIBILE' o 'VENDUTA'")
+    private String stato;
+}
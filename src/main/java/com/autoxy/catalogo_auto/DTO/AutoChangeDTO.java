@@ -0,0 +1,40 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * DTO per una modifica del catalogo letta dal feed delle modifiche.
+ * Non contiene validatori in quanto usato solo in output.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoChangeDTO {
+    private long sequence;
+    private String type;
+    private Long autoId;
+    private Instant changedAt;
+    /**
+     * Auto dopo la modifica, null per le eliminazioni.
+     */
+    private AutoResponseDTO auto;
+
+    /**
+     * Costruttore usato dalle query che selezionano direttamente il DTO
+     * (vedi {@code AutoChangeRepository#CHANGE_PROJECTION}): i dati dell'auto arrivano come colonne.
+     */
+    public AutoChangeDTO(Long sequence, AutoChangedEvent.Type type, Long autoId, Instant changedAt, String marca,
+                         String modello, Integer annoProduzione, BigDecimal prezzo, StatoAuto stato, Long version) {
+        this(sequence, type.name(), autoId, changedAt, type == AutoChangedEvent.Type.DELETED ? null
+                : new AutoResponseDTO(autoId, marca, modello, annoProduzione, prezzo, stato, version));
+    }
+}
@@ -0,0 +1,24 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * DTO per un blocco del feed delle modifiche.
+ * Il blocco successivo si richiede passando {@code cursor} come {@code after}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoChangesDTO {
+    private List<AutoChangeDTO> changes;
+    /**
+     * Sequenza dell'ultima modifica del blocco, o il cursore richiesto se il blocco è vuoto.
+     */
+    private long cursor;
+}
@@ -0,0 +1,24 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO con i conteggi delle auto che soddisfano una ricerca, per marca, stato e fascia di prezzo.
+ * Le marche che differiscono solo per maiuscole e minuscole vengono contate insieme, come nel filtro di ricerca.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoFacetsDTO {
+    private long total;
+    private Map<String, Long> marca;
+    private Map<String, Long> stato;
+    private List<AutoPrezzoBucketDTO> prezzo;
+}
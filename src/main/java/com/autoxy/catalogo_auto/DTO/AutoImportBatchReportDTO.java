@@ -0,0 +1,27 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * DTO con l'esito di un singolo batch di un'importazione massiva.
+ * Ogni batch viene confermato in una transazione separata: se il salvataggio fallisce,
+ * nessuna riga del batch viene importata e {@code committed} è false.
+ * Gli errori indicano il numero di riga (1 per il primo elemento del feed).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoImportBatchReportDTO {
+    private int batch;
+    private int firstRow;
+    private int lastRow;
+    private int imported;
+    private boolean committed;
+    private List<String> errors;
+}
@@ -0,0 +1,23 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * DTO con l'esito di un'importazione massiva di auto.
+ * Riporta i totali e, per ogni batch, le righe importate e gli errori riscontrati.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoImportReportDTO {
+    private int rows;
+    private int imported;
+    private int rejected;
+    private List<AutoImportBatchReportDTO> batches;
+}
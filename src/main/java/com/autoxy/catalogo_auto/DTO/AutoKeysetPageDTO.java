@@ -0,0 +1,23 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * DTO per una pagina di risultati con paginazione keyset.
+ * Non contiene il totale degli elementi: la pagina successiva si richiede passando {@code nextCursor}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoKeysetPageDTO {
+    private List<AutoResponseDTO> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
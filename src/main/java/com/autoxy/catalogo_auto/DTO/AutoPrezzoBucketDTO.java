@@ -0,0 +1,22 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con il numero di auto in una fascia di prezzo.
+ * Il prezzo minimo è incluso e il massimo escluso; null indica una fascia senza limite.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoPrezzoBucketDTO {
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+}
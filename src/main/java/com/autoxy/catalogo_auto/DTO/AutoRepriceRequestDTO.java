@@ -0,0 +1,30 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO per la variazione percentuale del prezzo di tutte le auto di una marca.
+ * Una percentuale positiva aumenta il prezzo, una negativa lo riduce.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoRepriceRequestDTO {
+    @NotBlank(message = "La marca è obbligatoria")
+    private String marca;
+
+    @NotNull(message = "La percentuale è obbligatoria")
+    @DecimalMin(value = "-100.0", inclusive = false, message = "La percentuale deve essere maggiore di -100")
+    @Digits(integer = 6, fraction = 2, message = "La percentuale può avere al massimo due decimali")
+    private BigDecimal percentuale;
+}
@@ -1,25 +1,142 @@
 package com.autoxy.catalogo_auto.DTO;
 
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.fasterxml.jackson.annotation.JsonValue;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * DTO per la risposta con i dati dell'auto.
  * Non contiene validatori in quanto usato solo in output.
+ * Lista e ricerca possono restituire solo alcuni campi (parametro {@code fields}, vedi {@link #fields}):
+ * in quel caso le auto sono {@link Projection}, che serializzano solo i campi richiesti.
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
 public class AutoResponseDTO {
+
+    /**
+     * Campi che si possono richiedere con {@code fields}, nell'ordine in cui vengono serializzati.
+     * Coincidono con gli attributi di {@code Auto} con lo stesso nome: un nuovo campo del DTO va aggiunto anche qui.
+     */
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(
+            List.of("id", "marca", "modello", "annoProduzione", "prezzo", "stato", "version")));
+
     private Long id;
     private String marca;
     private String modello;
     private int annoProduzione;
     private BigDecimal prezzo;
     private String stato;
+    /**
+     * Versione dell'auto, restituita anche come ETag da {@code GET /api/auto/{id}}.
+     */
+    private Long version;
+
+    /**
+     * Costruttore usato dalle query che selezionano direttamente il DTO (vedi {@code AutoRepository#RESPONSE_PROJECTION}):
+     * lo stato arriva come enum e viene convertito nel nome, come fa {@code AutoMapper}.
+     */
+    public AutoResponseDTO(Long id, String marca, String modello, int annoProduzione, BigDecimal prezzo, StatoAuto stato,
+                           Long version) {
+        this(id, marca, modello, annoProduzione, prezzo, stato != null ? stato.name() : null, version);
+    }
+
+    /**
+     * Valida i campi richiesti con il parametro {@code fields}.
+     *
+     * @param fields Nomi dei campi; null o vuoto per tutti
+     * @return Campi richiesti nell'ordine di {@link #FIELDS} ({@link #FIELDS} stesso se sono tutti)
+     * @throws InvalidQueryParameterException Se un campo non appartiene al DTO
+     */
+    public static Set<String> fields(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return FIELDS;
+        }
+        Set<String> requested = fields.stream().map(String::trim).collect(Collectors.toSet());
+        requested.stream().filter(field -> !FIELDS.contains(field)).findFirst().ifPresent(field -> {
+            throw new InvalidQueryParameterException("Campo non valido: " + field + ". Campi ammessi: " + String.join(",", FIELDS));
+        });
+        if (requested.size() == FIELDS.size()) {
+            return FIELDS;
+        }
+        return FIELDS.stream().filter(requested::contains)
+                .collect(Collectors.collectingAndThen(Collectors.toCollection(LinkedHashSet::new), Collections::unmodifiableSet));
+    }
+
+    /**
+     * Copia del DTO con i soli campi indicati, per le auto lette senza passare dal database (indice di ricerca).
+     *
+     * @param fields Campi da mantenere, validati con {@link #fields}
+     * @return Questo DTO se i campi sono tutti, altrimenti una {@link Projection} con i soli campi indicati
+     */
+    public AutoResponseDTO select(Set<String> fields) {
+        if (fields.size() == FIELDS.size()) {
+            return this;
+        }
+        Projection projection = new Projection(fields);
+        projection.setId(fields.contains("id") ? id : null);
+        projection.setMarca(fields.contains("marca") ? marca : null);
+        projection.setModello(fields.contains("modello") ? modello : null);
+        projection.setAnnoProduzione(fields.contains("annoProduzione") ? annoProduzione : 0);
+        projection.setPrezzo(fields.contains("prezzo") ? prezzo : null);
+        projection.setStato(fields.contains("stato") ? stato : null);
+        projection.setVersion(fields.contains("version") ? version : null);
+        return projection;
+    }
+
+    /**
+     * Auto con solo alcuni campi, restituita da lista e ricerca con il parametro {@code fields}.
+     * Viene serializzata (JSON, CBOR e Smile) con i soli campi richiesti, nell'ordine di {@link #FIELDS};
+     * gli altri restano al valore predefinito e non vanno letti. Le risposte complete non cambiano.
+     */
+    @Getter
+    @EqualsAndHashCode(callSuper = true)
+    @ToString(callSuper = true)
+    public static class Projection extends AutoResponseDTO {
+
+        private final Set<String> fields;
+
+        /**
+         * @param fields Campi richiesti, validati con {@link AutoResponseDTO#fields}
+         */
+        public Projection(Set<String> fields) {
+            this.fields = fields;
+        }
+
+        @JsonValue
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            for (String field : fields) {
+                json.put(field, switch (field) {
+                    case "id" -> getId();
+                    case "marca" -> getMarca();
+                    case "modello" -> getModello();
+                    case "annoProduzione" -> getAnnoProduzione();
+                    case "prezzo" -> getPrezzo();
+                    case "stato" -> getStato();
+                    case "version" -> getVersion();
+                    default -> throw new IllegalArgumentException("Campo non valido: " + field);
+                });
+            }
+            return json;
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con i filtri opzionali della ricerca auto, valorizzato dai parametri della richiesta.
+ * Ogni campo null non viene applicato alla query.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AutoSearchCriteriaDTO {
+    /**
+     * Marca dell'auto (case-insensitive)
+     */
+    private String marca;
+
+    /**
+     * Modello dell'auto (case-insensitive)
+     */
+    private String modello;
+
+    /**
+     * Anno di produzione minimo (incluso)
+     */
+    private Integer annoMin;
+
+    /**
+     * Anno di produzione massimo (incluso)
+     */
+    private Integer annoMax;
+
+    /**
+     * Prezzo minimo (incluso)
+     */
+    private BigDecimal prezzoMin;
+
+    /**
+     * Prezzo massimo (incluso)
+     */
+    private BigDecimal prezzoMax;
+
+    /**
+     * Stato dell'auto
+     */
+    private StatoAuto stato;
+}
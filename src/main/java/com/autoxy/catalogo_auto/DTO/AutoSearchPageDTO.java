@@ -0,0 +1,26 @@
+package com.autoxy.catalogo_auto.DTO;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * DTO per una pagina di ricerca con totale non necessariamente esatto (vedi
+ * {@link com.autoxy.catalogo_auto.Enum.ConteggioTotale}).
+ * Oltre ai campi di una pagina contiene {@code totalApproximate}: se è true, {@code totalElements}
+ * e {@code totalPages} sono una stima (o, senza conteggio, il minimo compatibile con una pagina successiva),
+ * mentre contenuto e {@code last} sono sempre esatti.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AutoSearchPageDTO extends PageImpl<AutoResponseDTO> {
+    private final boolean totalApproximate;
+
+    public AutoSearchPageDTO(List<AutoResponseDTO> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+}
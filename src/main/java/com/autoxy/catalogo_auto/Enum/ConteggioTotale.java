@@ -0,0 +1,21 @@
+package com.autoxy.catalogo_auto.Enum;
+
+/**
+ * Modalità di calcolo del totale di una pagina di ricerca
+ */
+public enum ConteggioTotale {
+    /**
+     * Totale esatto, con una query di conteggio a ogni ricerca non in cache
+     */
+    ESATTO,
+
+    /**
+     * Totale stimato da un conteggio in cache, che può non comprendere le scritture più recenti
+     */
+    STIMATO,
+
+    /**
+     * Nessun conteggio: si sa solo se esiste una pagina successiva
+     */
+    NESSUNO
+}
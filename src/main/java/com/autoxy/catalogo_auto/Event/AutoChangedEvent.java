@@ -0,0 +1,68 @@
+package com.autoxy.catalogo_auto.Event;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+
+import java.util.List;
+
+/**
+ * Evento pubblicato dal service a ogni modifica del catalogo.
+ * <p>
+ * I listener che devono reagire solo a modifiche confermate usano
+ * {@code @TransactionalEventListener}, così l'evento viene consegnato dopo il commit.
+ * </p>
+ *
+ * @param type Tipo di modifica
+ * @param ids ID delle auto modificate
+ * @param autos Stato delle auto dopo la modifica (vuoto per le eliminazioni e per gli aggiornamenti massivi)
+ */
+public record AutoChangedEvent(Type type, List<Long> ids, List<AutoResponseDTO> autos) {
+
+    /**
+     * Tipi di modifica del catalogo.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * @param auto Auto appena creata
+     * @return Evento di creazione
+     */
+    public static AutoChangedEvent created(AutoResponseDTO auto) {
+        return new AutoChangedEvent(Type.CREATED, List.of(auto.getId()), List.of(auto));
+    }
+
+    /**
+     * @param autos Auto appena create con un'unica transazione (ad esempio un batch di importazione)
+     * @return Evento di creazione
+     */
+    public static AutoChangedEvent created(List<AutoResponseDTO> autos) {
+        return new AutoChangedEvent(Type.CREATED, autos.stream().map(AutoResponseDTO::getId).toList(), autos);
+    }
+
+    /**
+     * @param auto Auto aggiornata
+     * @return Evento di aggiornamento
+     */
+    public static AutoChangedEvent updated(AutoResponseDTO auto) {
+        return new AutoChangedEvent(Type.UPDATED, List.of(auto.getId()), List.of(auto));
+    }
+
+    /**
+     * @param ids ID delle auto modificate da un aggiornamento massivo, eseguito senza caricare le entità
+     * @return Evento di aggiornamento senza lo stato delle auto
+     */
+    public static AutoChangedEvent updated(List<Long> ids) {
+        return new AutoChangedEvent(Type.UPDATED, List.copyOf(ids), List.of());
+    }
+
+    /**
+     * @param id ID dell'auto eliminata
+     * @return Evento di eliminazione
+     */
+    public static AutoChangedEvent deleted(Long id) {
+        return new AutoChangedEvent(Type.DELETED, List.of(id), List.of());
+    }
+}
@@ -1,5 +1,6 @@
 package com.autoxy.catalogo_auto.Exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -29,6 +30,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
+    /**
+     * Gestisce le eccezioni di tipo {@link InvalidQueryParameterException}.
+     * Questo metodo viene invocato quando un parametro della richiesta non è valido
+     * (ad esempio un cursore di paginazione o un campo di ordinamento non ammesso).
+     *
+     * @param ex L'eccezione {@link InvalidQueryParameterException} sollevata.
+     * @return Una {@link ResponseEntity} con status HTTP 400 (Bad Request) e il messaggio dell'eccezione.
+     */
+    @ExceptionHandler(InvalidQueryParameterException.class)
+    public ResponseEntity<String> handleInvalidQueryParameterException(InvalidQueryParameterException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    /**
+     * Gestisce le eccezioni di tipo {@link OptimisticLockingFailureException}.
+     * Questo metodo viene invocato quando un aggiornamento condizionato (If-Match) trova una versione diversa
+     * da quella attesa, o quando l'auto viene modificata da un'altra richiesta durante l'aggiornamento.
+     *
+     * @param ex L'eccezione {@link OptimisticLockingFailureException} sollevata.
+     * @return Una {@link ResponseEntity} con status HTTP 412 (Precondition Failed) e un messaggio per il client,
+     *         che deve rileggere l'auto prima di riprovare.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body("L'auto è stata modificata nel frattempo: rileggerla e ripetere l'aggiornamento");
+    }
+
     /**
      * Gestisce le eccezioni di tipo {@link MethodArgumentNotValidException}.
      * Questo metodo viene invocato quando i dati inviati nella richiesta non superano la validazione.
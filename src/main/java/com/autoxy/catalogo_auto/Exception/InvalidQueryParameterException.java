@@ -0,0 +1,24 @@
+package com.autoxy.catalogo_auto.Exception;
+
+/**
+ * Parametro di query non valido inviato dal client (ad esempio un cursore di paginazione
+ * o un campo di ordinamento non ammesso), restituito con status HTTP 400 da {@link GlobalExceptionHandler}.
+ * Le altre {@link IllegalArgumentException} restano errori interni del server.
+ */
+public class InvalidQueryParameterException extends IllegalArgumentException {
+
+    /**
+     * @param message Messaggio per il client
+     */
+    public InvalidQueryParameterException(String message) {
+        super(message);
+    }
+
+    /**
+     * @param message Messaggio per il client
+     * @param cause Errore di decodifica del parametro
+     */
+    public InvalidQueryParameterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
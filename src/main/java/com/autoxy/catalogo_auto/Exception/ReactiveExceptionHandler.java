@@ -0,0 +1,73 @@
+package com.autoxy.catalogo_auto.Exception;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindException;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Gestisce le eccezioni dell'API reattiva con le stesse risposte di {@link GlobalExceptionHandler}.
+ * Un errore prima della prima auto di una lista (ad esempio una ricerca senza risultati) produce ancora
+ * la risposta di errore; dopo l'invio della prima riga la risposta viene solo interrotta.
+ */
+@Component
+public class ReactiveExceptionHandler implements WebExceptionHandler {
+
+    @Autowired
+    HandlerStrategies reactiveHandlerStrategies;
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        if (exchange.getResponse().isCommitted()) {
+            return Mono.error(ex);
+        }
+        return toResponse(ex).flatMap(response -> response.writeTo(exchange, new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return reactiveHandlerStrategies.messageWriters();
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return reactiveHandlerStrategies.viewResolvers();
+            }
+        }));
+    }
+
+    private Mono<ServerResponse> toResponse(Throwable ex) {
+        if (ex instanceof NoSuchElementException) {
+            return text(HttpStatus.NOT_FOUND, ex.getMessage());
+        }
+        if (ex instanceof BindException bindException) {
+            Map<String, String> errors = new HashMap<>();
+            bindException.getBindingResult().getFieldErrors().forEach(error ->
+                    errors.put(error.getField(), error.getDefaultMessage()));
+            return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON).bodyValue(errors);
+        }
+        if (ex instanceof InvalidQueryParameterException) {
+            return text(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        if (ex instanceof ResponseStatusException responseStatusException) {
+            return ServerResponse.status(responseStatusException.getStatusCode()).build();
+        }
+        return text(HttpStatus.INTERNAL_SERVER_ERROR, "Errore interno del server");
+    }
+
+    private static Mono<ServerResponse> text(HttpStatus status, String message) {
+        return ServerResponse.status(status).contentType(MediaType.TEXT_PLAIN).bodyValue(message);
+    }
+}
@@ -0,0 +1,58 @@
+package com.autoxy.catalogo_auto.Mapper;
+
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Model.Auto;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper tra l'entità {@link Auto} e i relativi DTO.
+ * Copia i campi esplicitamente, senza reflection né lookup di type map a ogni chiamata.
+ */
+@Component
+public class AutoMapper {
+
+    /**
+     * Converte un'entità in DTO di risposta.
+     *
+     * @param auto Entità da convertire
+     * @return {@link AutoResponseDTO} con i dati dell'auto
+     */
+    public AutoResponseDTO toResponseDTO(Auto auto) {
+        return new AutoResponseDTO(
+                auto.getId(),
+                auto.getMarca(),
+                auto.getModello(),
+                auto.getAnnoProduzione(),
+                auto.getPrezzo(),
+                auto.getStato() != null ? auto.getStato().name() : null,
+                auto.getVersion());
+    }
+
+    /**
+     * Crea una nuova entità a partire dal DTO di richiesta. L'ID viene lasciato null.
+     *
+     * @param autoRequestDTO DTO con i dati dell'auto
+     * @return Nuova entità {@link Auto}
+     */
+    public Auto toEntity(AutoRequestDTO autoRequestDTO) {
+        Auto auto = new Auto();
+        updateEntity(autoRequestDTO, auto);
+        return auto;
+    }
+
+    /**
+     * Copia i dati del DTO di richiesta su un'entità esistente. L'ID non viene modificato.
+     *
+     * @param autoRequestDTO DTO con i nuovi dati
+     * @param auto Entità da aggiornare
+     */
+    public void updateEntity(AutoRequestDTO autoRequestDTO, Auto auto) {
+        auto.setMarca(autoRequestDTO.getMarca());
+        auto.setModello(autoRequestDTO.getModello());
+        auto.setAnnoProduzione(autoRequestDTO.getAnnoProduzione());
+        auto.setPrezzo(autoRequestDTO.getPrezzo());
+        auto.setStato(autoRequestDTO.getStato() != null ? StatoAuto.valueOf(autoRequestDTO.getStato()) : null);
+    }
+}
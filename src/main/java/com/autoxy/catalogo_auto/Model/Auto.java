@@ -5,27 +5,47 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
 /**
  * Entità che rappresenta un'automobile nel database.
+ * Gli indici coprono i filtri e gli ordinamenti della ricerca: marca normalizzata
+ * (con prezzo per filtro e ordinamento insieme), modello normalizzato, prezzo e anno di produzione.
+ * Lo stato non è indicizzato: con due soli valori un indice costerebbe più di una scansione.
  */
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_auto_marca_prezzo", columnList = "marca_normalizzata, prezzo"),
+        @Index(name = "idx_auto_modello", columnList = "modello_normalizzato"),
+        @Index(name = "idx_auto_prezzo", columnList = "prezzo"),
+        @Index(name = "idx_auto_anno_produzione", columnList = "anno_produzione")
+})
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @ToString
 public class Auto {
     /**
-     * Identificativo univoco generato automaticamente
+     * Nome della sequenza degli ID.
+     */
+    public static final String ID_SEQUENCE = "auto_seq";
+
+    /**
+     * ID riservati a ogni lettura della sequenza: Hibernate li assegna in memoria
+     * e può quindi raggruppare gli inserimenti in batch JDBC.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Identificativo univoco generato da una sequenza con ottimizzatore pooled
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -35,6 +55,15 @@ public class Auto {
     @NotNull
     private String marca;
 
+    /**
+     * Marca in minuscolo, calcolata dal database a partire da {@link #marca}.
+     * È la colonna indicizzata usata dal filtro case-insensitive al posto di {@code LOWER(marca)}.
+     */
+    @Column(name = "marca_normalizzata", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (LOWER(marca))")
+    @Setter(AccessLevel.NONE)
+    private String marcaNormalizzata;
+
     /**
      * Modello dell'auto (obbligatorio)
      */
@@ -42,6 +71,15 @@ public class Auto {
     @NotNull
     private String modello;
 
+    /**
+     * Modello in minuscolo, calcolato dal database a partire da {@link #modello}.
+     * È la colonna indicizzata usata dal filtro case-insensitive al posto di {@code LOWER(modello)}.
+     */
+    @Column(name = "modello_normalizzato", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (LOWER(modello))")
+    @Setter(AccessLevel.NONE)
+    private String modelloNormalizzato;
+
     /**
      * Anno di produzione (≥ 1900)
      */
@@ -65,4 +103,31 @@ public class Auto {
     @Column(nullable = false)
     @NotNull
     private StatoAuto stato;
-}
\ No newline at end of file
+
+    /**
+     * Versione per il controllo di concorrenza ottimistico, incrementata a ogni modifica
+     * (anche dagli UPDATE massivi di {@code AutoRepository}). Le righe inserite senza versione partono da 0.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
+    /**
+     * Crea un'auto con i dati anagrafici e commerciali.
+     *
+     * @param id Identificativo (null per una nuova auto)
+     * @param marca Marca dell'auto
+     * @param modello Modello dell'auto
+     * @param annoProduzione Anno di produzione
+     * @param prezzo Prezzo di vendita
+     * @param stato Stato corrente
+     */
+    public Auto(Long id, String marca, String modello, int annoProduzione, BigDecimal prezzo, StatoAuto stato) {
+        this.id = id;
+        this.marca = marca;
+        this.modello = modello;
+        this.annoProduzione = annoProduzione;
+        this.prezzo = prezzo;
+        this.stato = stato;
+    }
+}
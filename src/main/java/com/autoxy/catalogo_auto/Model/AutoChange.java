@@ -0,0 +1,69 @@
+package com.autoxy.catalogo_auto.Model;
+
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Riga della tabella outbox delle modifiche del catalogo.
+ * <p>
+ * Viene scritta nella stessa transazione della modifica, quindi esiste solo se la modifica è confermata.
+ * Il numero di sequenza viene assegnato sotto il lock di {@link AutoChangeHead}: le modifiche vengono
+ * confermate nell'ordine della sequenza e un consumatore può usare l'ultima letta come cursore
+ * senza perderne nessuna. Per creazioni e aggiornamenti contiene lo stato dell'auto dopo la modifica.
+ * </p>
+ */
+@Entity
+@Table(name = "auto_change", indexes = @Index(name = "idx_auto_change_auto_id", columnList = "auto_id"))
+@Data
+@NoArgsConstructor
+@ToString
+public class AutoChange {
+
+    /**
+     * Numero di sequenza della modifica, assegnato da {@link AutoChangeHead}
+     */
+    @Id
+    private Long sequence;
+
+    /**
+     * Tipo di modifica
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AutoChangedEvent.Type type;
+
+    /**
+     * ID dell'auto modificata
+     */
+    @Column(name = "auto_id", nullable = false)
+    private Long autoId;
+
+    /**
+     * Istante in cui la modifica è stata registrata
+     */
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    private String marca;
+
+    private String modello;
+
+    private Integer annoProduzione;
+
+    private BigDecimal prezzo;
+
+    @Enumerated(EnumType.STRING)
+    private StatoAuto stato;
+
+    /**
+     * Versione dell'auto dopo la modifica (null per le eliminazioni)
+     */
+    private Long version;
+}
@@ -0,0 +1,37 @@
+package com.autoxy.catalogo_auto.Model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Riga unica con l'ultimo numero di sequenza assegnato a {@link AutoChange}.
+ * <p>
+ * Chi registra una modifica la legge con un lock in scrittura, mantenuto fino al commit: le transazioni
+ * che modificano il catalogo assegnano i numeri di sequenza e vengono confermate una alla volta, quindi
+ * una modifica con sequenza minore non può diventare visibile dopo una con sequenza maggiore.
+ * </p>
+ */
+@Entity
+@Table(name = "auto_change_head")
+@Data
+@NoArgsConstructor
+public class AutoChangeHead {
+
+    /**
+     * ID dell'unica riga della tabella.
+     */
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    /**
+     * Ultimo numero di sequenza assegnato (0 se non ci sono modifiche)
+     */
+    @Column(nullable = false)
+    private long lastSequence;
+}
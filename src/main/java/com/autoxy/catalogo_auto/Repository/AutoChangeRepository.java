@@ -0,0 +1,36 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import com.autoxy.catalogo_auto.DTO.AutoChangeDTO;
+import com.autoxy.catalogo_auto.Model.AutoChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository della tabella outbox delle modifiche del catalogo ({@link AutoChange}).
+ */
+@Repository
+public interface AutoChangeRepository extends JpaRepository<AutoChange, Long> {
+
+    /**
+     * Espressione JPQL che costruisce un {@link AutoChangeDTO} dalle colonne di {@code AutoChange c}.
+     */
+    String CHANGE_PROJECTION = "new com.autoxy.catalogo_auto.DTO.AutoChangeDTO(c.sequence, c.type, c.autoId,"
+            + " c.changedAt, c.marca, c.modello, c.annoProduzione, c.prezzo, c.stato, c.version)";
+
+    /**
+     * Recupera le modifiche con sequenza strettamente maggiore di quella indicata, in ordine di sequenza.
+     *
+     * @param sequence Ultima sequenza già letta (0 per iniziare dalla prima modifica).
+     * @param limit Numero massimo di modifiche da restituire.
+     * @return Modifiche ordinate per sequenza crescente.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT " + CHANGE_PROJECTION + " FROM AutoChange c WHERE c.sequence > :sequence ORDER BY c.sequence")
+    List<AutoChangeDTO> findChangesAfter(@Param("sequence") long sequence, Limit limit);
+}
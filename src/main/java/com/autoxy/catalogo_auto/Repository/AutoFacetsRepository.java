@@ -0,0 +1,37 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Frammento di {@link AutoRepository} per il conteggio delle auto per marca, stato e fascia di prezzo.
+ */
+public interface AutoFacetsRepository {
+
+    /**
+     * Conteggi di un gruppo di auto con la stessa marca e lo stesso stato. Più gruppi possono avere
+     * la stessa marca scritta con maiuscole diverse: vanno sommati da chi li legge.
+     *
+     * @param marca Marca del gruppo
+     * @param stato Stato del gruppo
+     * @param count Numero di auto del gruppo
+     * @param prezzoBuckets Numero di auto per fascia di prezzo: una fascia in più dei limiti indicati,
+     *                      la fascia {@code i} va dal limite {@code i - 1} (incluso) al limite {@code i} (escluso)
+     */
+    record FacetGroup(String marca, StatoAuto stato, long count, long[] prezzoBuckets) {
+    }
+
+    /**
+     * Conta le auto che soddisfano i criteri con un'unica query GROUP BY su marca e stato,
+     * calcolando nella stessa query il numero di auto per ogni fascia di prezzo.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati
+     * @param prezzoLimits Limiti delle fasce di prezzo, in ordine crescente
+     * @return Un gruppo per ogni combinazione di marca (senza distinzione tra maiuscole e minuscole) e stato presente,
+     *         con la prima in ordine alfabetico tra le varianti della marca
+     */
+    List<FacetGroup> facets(AutoSearchCriteriaDTO criteria, List<BigDecimal> prezzoLimits);
+}
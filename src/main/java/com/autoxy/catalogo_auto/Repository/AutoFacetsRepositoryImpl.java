@@ -0,0 +1,78 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Model.Auto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione di {@link AutoFacetsRepository} con la Criteria API.
+ * <p>
+ * La query usa gli stessi predicati di {@link AutoSpecifications#search} e conta le fasce di prezzo
+ * con {@code COUNT(CASE WHEN <fascia> THEN id END)}: i limiti restano parametri della clausola WHEN,
+ * senza costanti nella SELECT che il database dovrebbe ripetere nel GROUP BY.
+ * </p>
+ */
+public class AutoFacetsRepositoryImpl implements AutoFacetsRepository {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FacetGroup> facets(AutoSearchCriteriaDTO criteria, List<BigDecimal> prezzoLimits) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Auto> auto = query.from(Auto.class);
+        Expression<BigDecimal> prezzo = auto.get("prezzo");
+
+        List<Selection<?>> selections = new ArrayList<>(List.of(
+                cb.least(auto.<String>get("marca")),
+                auto.get("stato"),
+                cb.count(auto)));
+        for (int bucket = 0; bucket <= prezzoLimits.size(); bucket++) {
+            List<Predicate> range = new ArrayList<>(2);
+            if (bucket > 0) {
+                range.add(cb.greaterThanOrEqualTo(prezzo, prezzoLimits.get(bucket - 1)));
+            }
+            if (bucket < prezzoLimits.size()) {
+                range.add(cb.lessThan(prezzo, prezzoLimits.get(bucket)));
+            }
+            selections.add(range.isEmpty()
+                    ? cb.count(auto)
+                    : cb.count(cb.selectCase().when(cb.and(range.toArray(Predicate[]::new)), auto.<Long>get("id"))));
+        }
+        query.multiselect(selections);
+
+        Predicate where = AutoSpecifications.search(criteria).toPredicate(auto, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.groupBy(auto.get("marcaNormalizzata"), auto.get("stato"));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> {
+                    long[] buckets = new long[prezzoLimits.size() + 1];
+                    for (int bucket = 0; bucket < buckets.length; bucket++) {
+                        buckets[bucket] = row.get(3 + bucket, Long.class);
+                    }
+                    return new FacetGroup(row.get(0, String.class), row.get(1, StatoAuto.class),
+                            row.get(2, Long.class), buckets);
+                })
+                .toList();
+    }
+}
@@ -1,43 +1,142 @@
 package com.autoxy.catalogo_auto.Repository;
 
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
 import com.autoxy.catalogo_auto.Enum.StatoAuto;
 import com.autoxy.catalogo_auto.Model.Auto;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository per l'accesso ai dati delle auto.
- * Estende JpaRepository per operazioni CRUD standard.
- * Fornisce un metodo personalizzato per la ricerca di auto con filtri opzionali.
+ * Estende JpaRepository per operazioni CRUD standard e JpaSpecificationExecutor
+ * per le ricerche costruite con {@link AutoSpecifications}.
+ * Fornisce un metodo personalizzato per la ricerca di auto con filtri opzionali
+ * e la lettura a blocchi (keyset) dell'intero catalogo, oltre agli aggiornamenti massivi
+ * eseguiti come singole istruzioni UPDATE. I conteggi per marca, stato e fascia di prezzo
+ * sono implementati in {@link AutoFacetsRepository}. Le letture di sola consultazione (lista, export e ricerca,
+ * vedi {@link AutoResponseRepository}) selezionano direttamente {@link AutoResponseDTO}, in transazioni di sola lettura.
  */
 @Repository
-public interface AutoRepository extends JpaRepository<Auto, Long> {
+public interface AutoRepository extends JpaRepository<Auto, Long>, JpaSpecificationExecutor<Auto>,
+        AutoFacetsRepository, AutoResponseRepository {
+
+    /**
+     * Espressione JPQL che costruisce un {@link AutoResponseDTO} dalle colonne di {@code Auto a}.
+     */
+    String RESPONSE_PROJECTION = "new com.autoxy.catalogo_auto.DTO.AutoResponseDTO("
+            + "a.id, a.marca, a.modello, a.annoProduzione, a.prezzo, a.stato, a.version)";
+
     /**
-     * Ricerca auto in base a marca, stato, prezzo minimo e massimo.
-     * I parametri sono opzionali: se null, il filtro non viene applicato.
+     * Ricerca auto con i filtri opzionali indicati nei criteri.
+     * La query contiene solo i predicati dei filtri valorizzati (vedi {@link AutoSpecifications#search}),
+     * in modo che il database possa usare gli indici definiti su {@link Auto}.
+     * Un ordinamento richiesto viene completato con l'ID (vedi {@link AutoSpecifications#withIdTieBreak}).
      *
-     * @param marca Marca dell'auto (case-insensitive). Se null, ignora il filtro.
-     * @param stato Stato dell'auto. Se null, ignora il filtro.
-     * @param prezzoMin Prezzo minimo. Se null, ignora il filtro.
-     * @param prezzoMax Prezzo massimo. Se null, ignora il filtro.
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
      * @param pageable Paginazione e ordinamento dei risultati.
      * @return Pagina di risultati contenente le auto che soddisfano i criteri.
      */
-    @Query("SELECT a FROM Auto a WHERE " +
-            "(:marca IS NULL OR LOWER(a.marca) = LOWER(:marca)) AND " +
-            "(:stato IS NULL OR a.stato = :stato) AND " +
-            "(:prezzoMin IS NULL OR a.prezzo >= :prezzoMin) AND " +
-            "(:prezzoMax IS NULL OR a.prezzo <= :prezzoMax)")
-    Page<Auto> search(@Param("marca") String marca,
-                      @Param("stato") StatoAuto stato,
-                      @Param("prezzoMin") BigDecimal prezzoMin,
-                      @Param("prezzoMax") BigDecimal prezzoMax,
-                      Pageable pageable);
+    default Page<Auto> search(AutoSearchCriteriaDTO criteria, Pageable pageable) {
+        Page<Auto> page = findAll(AutoSpecifications.search(criteria), AutoSpecifications.withIdTieBreak(pageable));
+        return new PageImpl<>(page.getContent(), pageable, page.getTotalElements());
+    }
+
+    /**
+     * Recupera tutte le auto ordinate per ID, lette direttamente nel DTO di risposta.
+     * Le righe non diventano entità gestite: nessuno snapshot per il dirty checking e nessuna copia con il mapper.
+     *
+     * @return Tutte le auto ordinate per ID crescente.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Auto a ORDER BY a.id")
+    List<AutoResponseDTO> findAllResponses();
+
+    /**
+     * Recupera un blocco di auto con ID strettamente maggiore di quello indicato, ordinate per ID
+     * e lette direttamente nel DTO di risposta.
+     * Usato per scorrere l'intero catalogo a blocchi (keyset) senza OFFSET e senza caricare
+     * tutte le righe in memoria.
+     *
+     * @param id Ultimo ID letto nel blocco precedente (0 per iniziare dal primo).
+     * @param limit Numero massimo di auto da restituire.
+     * @return Blocco di auto ordinate per ID crescente.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Auto a WHERE a.id > :id ORDER BY a.id")
+    List<AutoResponseDTO> findResponsesByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    /**
+     * Recupera le auto con gli ID indicati, lette direttamente nel DTO di risposta.
+     * Usato per registrare lo stato delle auto modificate da un aggiornamento massivo.
+     *
+     * @param ids ID delle auto da leggere
+     * @return Auto trovate ordinate per ID crescente (gli ID inesistenti vengono ignorati)
+     */
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Auto a WHERE a.id IN :ids ORDER BY a.id")
+    List<AutoResponseDTO> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Elimina l'auto con l'ID indicato con un'unica istruzione DELETE, senza caricarla.
+     *
+     * @param id ID dell'auto da eliminare
+     * @return Numero di auto eliminate: 0 se l'ID non esiste, altrimenti 1
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Auto a WHERE a.id = :id")
+    int deleteAutoById(@Param("id") Long id);
+
+    /**
+     * Imposta lo stato di tutte le auto con gli ID indicati con un'unica istruzione UPDATE,
+     * incrementandone la versione.
+     *
+     * @param ids ID delle auto da modificare
+     * @param stato Nuovo stato
+     * @return Numero di auto modificate (gli ID inesistenti non vengono contati)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Auto a SET a.stato = :stato, a.version = a.version + 1 WHERE a.id IN :ids")
+    int updateStatoByIdIn(@Param("ids") Collection<Long> ids, @Param("stato") StatoAuto stato);
+
+    /**
+     * Varia in percentuale il prezzo delle auto con gli ID indicati con un'unica istruzione UPDATE,
+     * arrotondando ai centesimi. La percentuale viene passata al database così com'è (il parametro
+     * assume la scala a due decimali del prezzo), la variazione {@code prezzo * percentuale / 100}
+     * viene calcolata nella query. Come ogni modifica, l'UPDATE incrementa la versione delle auto.
+     *
+     * @param ids ID delle auto da modificare, letti con {@link #findIdsByMarcaForUpdate}
+     * @param percentuale Variazione percentuale del prezzo (al massimo due decimali)
+     * @return Numero di auto modificate
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Auto a SET a.prezzo = ROUND(a.prezzo + a.prezzo * :percentuale / 100, 2), a.version = a.version + 1"
+            + " WHERE a.id IN :ids")
+    int updatePrezzoByIdIn(@Param("ids") Collection<Long> ids, @Param("percentuale") BigDecimal percentuale);
+
+    /**
+     * Recupera gli ID delle auto di una marca bloccandone le righe ({@code SELECT ... FOR UPDATE}) fino alla fine
+     * della transazione, senza caricare le entità: le auto lette non possono essere modificate o eliminate
+     * da altre transazioni prima dell'aggiornamento.
+     *
+     * @param marca Marca in minuscolo, confrontata con la colonna indicizzata {@code marca_normalizzata}
+     * @return ID delle auto della marca
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Auto a WHERE a.marcaNormalizzata = :marca")
+    List<Long> findIdsByMarcaForUpdate(@Param("marca") String marca);
 }
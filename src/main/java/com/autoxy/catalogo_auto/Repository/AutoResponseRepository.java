@@ -0,0 +1,64 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Set;
+
+/**
+ * Frammento di {@link AutoRepository} per la ricerca letta direttamente nel DTO di risposta.
+ */
+public interface AutoResponseRepository {
+
+    /**
+     * Ricerca auto con gli stessi filtri, ordinamento e paginazione di {@link AutoRepository#search},
+     * selezionando le colonne in un {@link AutoResponseDTO} invece di caricare le entità.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param pageable Paginazione e ordinamento dei risultati.
+     * @return Pagina di risultati contenente DTO delle auto che soddisfano i criteri.
+     */
+    Page<AutoResponseDTO> searchResponses(AutoSearchCriteriaDTO criteria, Pageable pageable);
+
+    /**
+     * Come {@link #searchResponses(AutoSearchCriteriaDTO, Pageable)}, ma la SELECT contiene solo le colonne dei campi
+     * indicati, come {@link AutoResponseDTO.Projection}.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param pageable Paginazione e ordinamento dei risultati (anche su campi non selezionati).
+     * @param fields Campi da leggere, validati con {@link AutoResponseDTO#fields}.
+     * @return Pagina di risultati con i soli campi indicati.
+     */
+    Page<AutoResponseDTO> searchResponses(AutoSearchCriteriaDTO criteria, Pageable pageable, Set<String> fields);
+
+    /**
+     * Come {@link #searchResponses}, ma senza query di conteggio: legge una riga in più della pagina
+     * per sapere se esiste una pagina successiva.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param pageable Paginazione e ordinamento dei risultati.
+     * @return Pagina di risultati senza totale.
+     */
+    Slice<AutoResponseDTO> sliceResponses(AutoSearchCriteriaDTO criteria, Pageable pageable);
+
+    /**
+     * Come {@link #sliceResponses(AutoSearchCriteriaDTO, Pageable)}, leggendo solo le colonne dei campi indicati.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param pageable Paginazione e ordinamento dei risultati (anche su campi non selezionati).
+     * @param fields Campi da leggere, validati con {@link AutoResponseDTO#fields}.
+     * @return Pagina di risultati senza totale, con i soli campi indicati.
+     */
+    Slice<AutoResponseDTO> sliceResponses(AutoSearchCriteriaDTO criteria, Pageable pageable, Set<String> fields);
+
+    /**
+     * Conta le auto che soddisfano i criteri, con la query di conteggio di {@link #searchResponses}.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @return Numero di auto che soddisfano i criteri.
+     */
+    long countResponses(AutoSearchCriteriaDTO criteria);
+}
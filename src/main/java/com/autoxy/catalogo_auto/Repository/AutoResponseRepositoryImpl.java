@@ -0,0 +1,175 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Model.Auto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementazione di {@link AutoResponseRepository} con la Criteria API.
+ * <p>
+ * La SELECT è un'espressione costruttore su {@link AutoResponseDTO}: Hibernate crea direttamente i DTO
+ * dalle righe, senza entità nel persistence context. Come in {@code SimpleJpaRepository}, la query
+ * di conteggio viene eseguita solo se il totale non si ricava dalla pagina stessa; {@link #sliceResponses}
+ * non la esegue mai e legge invece una riga in più.
+ * </p>
+ * <p>
+ * Con un sottoinsieme dei campi del DTO ({@code fields}) la SELECT è una tupla delle sole colonne richieste,
+ * copiate nei campi corrispondenti di una {@link AutoResponseDTO.Projection}.
+ * </p>
+ * <p>
+ * Le due query sono misurate dal timer {@value #QUERY_TIMER}, con i tag {@code query} (select o count)
+ * e {@code filters} (vedi {@link AutoSpecifications#filterNames}).
+ * </p>
+ */
+public class AutoResponseRepositoryImpl implements AutoResponseRepository {
+
+    /**
+     * Timer delle query di ricerca sul database.
+     */
+    static final String QUERY_TIMER = "catalogo.search.query";
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Registro delle metriche; senza un registro nel contesto (test slice) le metriche vanno
+     * al registro globale di Micrometer, che senza registri configurati le ignora.
+     */
+    @Autowired(required = false)
+    MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<AutoResponseDTO> searchResponses(AutoSearchCriteriaDTO criteria, Pageable pageable) {
+        return searchResponses(criteria, pageable, AutoResponseDTO.FIELDS);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<AutoResponseDTO> searchResponses(AutoSearchCriteriaDTO criteria, Pageable pageable, Set<String> fields) {
+        List<AutoResponseDTO> content = select(criteria, pageable, pageable.isPaged() ? pageable.getPageSize() : 0, fields);
+        return PageableExecutionUtils.getPage(content, pageable, () -> countResponses(criteria));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<AutoResponseDTO> sliceResponses(AutoSearchCriteriaDTO criteria, Pageable pageable) {
+        return sliceResponses(criteria, pageable, AutoResponseDTO.FIELDS);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<AutoResponseDTO> sliceResponses(AutoSearchCriteriaDTO criteria, Pageable pageable, Set<String> fields) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(select(criteria, pageable, 0, fields), pageable, false);
+        }
+        List<AutoResponseDTO> content = select(criteria, pageable, pageable.getPageSize() + 1, fields);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countResponses(AutoSearchCriteriaDTO criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> count = cb.createQuery(Long.class);
+        Root<Auto> counted = count.from(Auto.class);
+        count.select(cb.count(counted));
+        where(count, AutoSpecifications.search(criteria), counted, cb);
+        TypedQuery<Long> total = entityManager.createQuery(count);
+        return meterRegistry.timer(QUERY_TIMER, "query", "count", "filters", AutoSpecifications.filterNames(criteria))
+                .record(total::getSingleResult);
+    }
+
+    /**
+     * Legge le righe della pagina, ordinate con l'ID come criterio di spareggio.
+     * Con tutti i campi la SELECT è l'espressione costruttore del DTO, altrimenti una tupla delle sole colonne richieste.
+     *
+     * @param maxResults Numero massimo di righe (0 senza limite, per una richiesta non paginata)
+     * @param fields Campi da leggere
+     */
+    private List<AutoResponseDTO> select(AutoSearchCriteriaDTO criteria, Pageable pageable, int maxResults, Set<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (fields.size() == AutoResponseDTO.FIELDS.size()) {
+            CriteriaQuery<AutoResponseDTO> query = cb.createQuery(AutoResponseDTO.class);
+            Root<Auto> auto = query.from(Auto.class);
+            query.select(cb.construct(AutoResponseDTO.class,
+                    auto.get("id"), auto.get("marca"), auto.get("modello"), auto.get("annoProduzione"),
+                    auto.get("prezzo"), auto.get("stato"), auto.get("version")));
+            return resultList(query, auto, criteria, pageable, maxResults);
+        }
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Auto> auto = query.from(Auto.class);
+        query.multiselect(fields.stream().<Selection<?>>map(field -> auto.get(field).alias(field)).toList());
+        return resultList(query, auto, criteria, pageable, maxResults).stream()
+                .map(row -> toResponse(row, fields))
+                .toList();
+    }
+
+    private <T> List<T> resultList(CriteriaQuery<T> query, Root<Auto> auto, AutoSearchCriteriaDTO criteria,
+                                   Pageable pageable, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        where(query, AutoSpecifications.search(criteria), auto, cb);
+        query.orderBy(QueryUtils.toOrders(AutoSpecifications.withIdTieBreak(pageable).getSort(), auto, cb));
+        TypedQuery<T> page = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            page.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            page.setMaxResults(maxResults);
+        }
+        return meterRegistry.timer(QUERY_TIMER, "query", "select", "filters", AutoSpecifications.filterNames(criteria))
+                .record(page::getResultList);
+    }
+
+    /**
+     * Copia le colonne di una tupla nei campi omonimi di una {@link AutoResponseDTO.Projection} vuota.
+     */
+    private static AutoResponseDTO toResponse(Tuple row, Set<String> fields) {
+        AutoResponseDTO response = new AutoResponseDTO.Projection(fields);
+        for (String field : fields) {
+            Object value = row.get(field);
+            switch (field) {
+                case "id" -> response.setId((Long) value);
+                case "marca" -> response.setMarca((String) value);
+                case "modello" -> response.setModello((String) value);
+                case "annoProduzione" -> response.setAnnoProduzione((Integer) value);
+                case "prezzo" -> response.setPrezzo((BigDecimal) value);
+                case "stato" -> response.setStato(((StatoAuto) value).name());
+                case "version" -> response.setVersion((Long) value);
+                default -> throw new IllegalArgumentException("Campo non valido: " + field);
+            }
+        }
+        return response;
+    }
+
+    private static void where(CriteriaQuery<?> query, Specification<Auto> specification, Root<Auto> auto, CriteriaBuilder cb) {
+        Predicate predicate = specification.toPredicate(auto, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
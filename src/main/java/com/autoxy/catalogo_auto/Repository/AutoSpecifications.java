@@ -0,0 +1,143 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Model.Auto;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * Specifiche JPA per la ricerca di auto.
+ * Costruiscono a runtime solo i predicati dei filtri effettivamente valorizzati,
+ * senza clausole {@code :param IS NULL OR ...}, così ogni predicato può usare gli indici di {@link Auto}.
+ * <p>
+ * Ogni filtro è un metodo che restituisce null se il valore non è presente: per aggiungerne uno
+ * basta un nuovo campo in {@link AutoSearchCriteriaDTO} e il relativo metodo in {@link #search}.
+ * </p>
+ */
+public final class AutoSpecifications {
+
+    private AutoSpecifications() {
+    }
+
+    /**
+     * Crea la specifica di ricerca con i soli filtri valorizzati nei criteri.
+     * Ogni combinazione di filtri produce sempre la stessa SQL, con i valori passati come parametri,
+     * quindi il piano può essere riutilizzato tra richieste diverse.
+     *
+     * @param criteria Filtri della ricerca
+     * @return Specifica con i soli predicati richiesti
+     */
+    public static Specification<Auto> search(AutoSearchCriteriaDTO criteria) {
+        return Specification.allOf(Stream.of(
+                        marca(criteria.getMarca()),
+                        modello(criteria.getModello()),
+                        annoMin(criteria.getAnnoMin()),
+                        annoMax(criteria.getAnnoMax()),
+                        prezzoMin(criteria.getPrezzoMin()),
+                        prezzoMax(criteria.getPrezzoMax()),
+                        stato(criteria.getStato()))
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Nomi dei filtri valorizzati nei criteri, nell'ordine dei campi, separati da virgola
+     * ({@code none} senza filtri). È il tag {@code filters} delle metriche di ricerca: una serie
+     * per combinazione di filtri, mai per valore, quindi al più 128 serie per metrica.
+     *
+     * @param criteria Filtri della ricerca
+     * @return Nomi dei filtri presenti, ad esempio {@code marca,prezzoMax}
+     */
+    public static String filterNames(AutoSearchCriteriaDTO criteria) {
+        StringJoiner names = new StringJoiner(",").setEmptyValue("none");
+        if (criteria.getMarca() != null) {
+            names.add("marca");
+        }
+        if (criteria.getModello() != null) {
+            names.add("modello");
+        }
+        if (criteria.getAnnoMin() != null) {
+            names.add("annoMin");
+        }
+        if (criteria.getAnnoMax() != null) {
+            names.add("annoMax");
+        }
+        if (criteria.getPrezzoMin() != null) {
+            names.add("prezzoMin");
+        }
+        if (criteria.getPrezzoMax() != null) {
+            names.add("prezzoMax");
+        }
+        if (criteria.getStato() != null) {
+            names.add("stato");
+        }
+        return names.toString();
+    }
+
+    /**
+     * Completa un ordinamento con l'ID, nella direzione dell'ultimo criterio, se non è già presente.
+     * Con valori uguali sui campi richiesti (ad esempio lo stesso prezzo) l'ordine diventa univoco:
+     * le pagine successive non ripetono né saltano auto e l'indice in memoria restituisce lo stesso ordine.
+     * Una paginazione senza ordinamento resta invariata.
+     *
+     * @param pageable Paginazione e ordinamento richiesti
+     * @return Paginazione con ordinamento univoco
+     */
+    public static Pageable withIdTieBreak(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted() || sort.getOrderFor("id") != null || pageable.isUnpaged()) {
+            return pageable;
+        }
+        Sort.Direction direction = sort.stream().reduce((first, second) -> second).orElseThrow().getDirection();
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.and(Sort.by(direction, "id")));
+    }
+
+    /**
+     * Filtro case-insensitive sulla colonna indicizzata {@code marcaNormalizzata}.
+     */
+    static Specification<Auto> marca(String marca) {
+        return marca == null ? null
+                : (root, query, cb) -> cb.equal(root.get("marcaNormalizzata"), marca.toLowerCase());
+    }
+
+    /**
+     * Filtro case-insensitive sulla colonna indicizzata {@code modelloNormalizzato}.
+     */
+    static Specification<Auto> modello(String modello) {
+        return modello == null ? null
+                : (root, query, cb) -> cb.equal(root.get("modelloNormalizzato"), modello.toLowerCase());
+    }
+
+    static Specification<Auto> annoMin(Integer annoMin) {
+        return annoMin == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("annoProduzione"), annoMin);
+    }
+
+    static Specification<Auto> annoMax(Integer annoMax) {
+        return annoMax == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("annoProduzione"), annoMax);
+    }
+
+    static Specification<Auto> prezzoMin(BigDecimal prezzoMin) {
+        return prezzoMin == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("prezzo"), prezzoMin);
+    }
+
+    static Specification<Auto> prezzoMax(BigDecimal prezzoMax) {
+        return prezzoMax == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("prezzo"), prezzoMax);
+    }
+
+    static Specification<Auto> stato(StatoAuto stato) {
+        return stato == null ? null
+                : (root, query, cb) -> cb.equal(root.get("stato"), stato);
+    }
+}
@@ -0,0 +1,172 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.Config.CacheConfig;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache delle singole auto per ID ({@link CacheConfig#AUTO_CACHE}), letta da {@link AutoService#findById}
+ * e aggiornata dalle scritture dopo il commit.
+ * <p>
+ * Una lettura che ha caricato l'auto prima del commit di una scrittura concorrente non deve rimettere in cache
+ * il valore vecchio dopo che la scrittura lo ha sostituito o rimosso. Ogni lettura prende quindi un numero
+ * di sequenza prima della query e il valore letto entra in cache con {@code asMap().compute}, atomicamente
+ * rispetto alle scritture sulla stessa chiave:
+ * </p>
+ * <ul>
+ *   <li>tra due valori della stessa auto resta quello con la versione più alta;</li>
+ *   <li>eliminazioni e aggiornamenti massivi, che non restituiscono il nuovo stato, rimuovono l'auto e lasciano
+ *       per {@code catalogo.cache.auto.tombstone-ttl} una lapide con il proprio numero di sequenza: un valore
+ *       letto con un numero precedente viene restituito al chiamante ma non entra in cache.</li>
+ * </ul>
+ * <p>
+ * Senza una cache Caffeine nel contesto (test slice) le auto vengono sempre lette dal database.
+ * </p>
+ */
+@Component
+public class AutoCache {
+
+    @Autowired(required = false)
+    CacheManager cacheManager = new NoOpCacheManager();
+
+    @Value("${catalogo.cache.auto.tombstone-ttl:1m}")
+    Duration tombstoneTtl = Duration.ofMinutes(1);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Lapidi per ID: numero di sequenza dell'ultima eliminazione o dell'ultimo aggiornamento massivo confermato.
+     */
+    private final Cache<Long, Long> tombstones = Caffeine.newBuilder()
+            .expireAfter(new Expiry<Long, Long>() {
+                @Override
+                public long expireAfterCreate(Long id, Long invalidatedAt, long currentTime) {
+                    return tombstoneTtl.toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(Long id, Long invalidatedAt, long currentTime, long currentDuration) {
+                    return tombstoneTtl.toNanos();
+                }
+
+                @Override
+                public long expireAfterRead(Long id, Long invalidatedAt, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    /**
+     * @return Numero di sequenza da prendere prima di leggere un'auto dal database, da passare a {@link #put}
+     */
+    public long ticket() {
+        return sequence.get();
+    }
+
+    /**
+     * Restituisce l'auto in cache o la legge con il loader e la mette in cache (vedi {@link #put}).
+     * Il caricamento non è sincronizzato: con un blocco sulla chiave Caffeine eseguirebbe la query
+     * dentro un blocco synchronized della mappa, che con i thread virtuali blocca anche il thread carrier.
+     *
+     * @param id ID dell'auto
+     * @param loader Lettura dell'auto dal database
+     * @return Auto in cache o appena letta
+     */
+    public AutoResponseDTO get(Long id, Supplier<AutoResponseDTO> loader) {
+        CaffeineCache cache = caffeineCache();
+        if (cache == null) {
+            return loader.get();
+        }
+        ValueWrapper cached = cache.get(id);
+        if (cached != null) {
+            return (AutoResponseDTO) cached.get();
+        }
+        long ticket = ticket();
+        AutoResponseDTO auto = loader.get();
+        store(cache, ticket, auto);
+        return auto;
+    }
+
+    /**
+     * Mette in cache un'auto letta o scritta, dopo il commit della transazione corrente se presente.
+     * Il valore non sostituisce uno con versione più alta e non entra in cache se l'auto è stata eliminata
+     * o modificata da un aggiornamento massivo dopo {@code ticket}.
+     *
+     * @param ticket Numero di sequenza preso prima della lettura dell'auto
+     * @param auto Auto da mettere in cache
+     */
+    public void put(long ticket, AutoResponseDTO auto) {
+        CaffeineCache cache = caffeineCache();
+        if (cache != null) {
+            afterCommit(() -> store(cache, ticket, auto));
+        }
+    }
+
+    /**
+     * Rimuove le auto dalla cache dopo il commit della transazione corrente, lasciando una lapide
+     * per le letture iniziate prima.
+     *
+     * @param ids ID delle auto eliminate o modificate senza leggerne il nuovo stato
+     */
+    public void invalidate(Collection<Long> ids) {
+        CaffeineCache cache = caffeineCache();
+        if (cache != null) {
+            afterCommit(() -> {
+                long invalidatedAt = sequence.incrementAndGet();
+                for (Long id : ids) {
+                    cache.getNativeCache().asMap().compute(id, (key, cached) -> {
+                        tombstones.put(id, invalidatedAt);
+                        return null;
+                    });
+                }
+            });
+        }
+    }
+
+    private void store(CaffeineCache cache, long ticket, AutoResponseDTO auto) {
+        cache.getNativeCache().asMap().compute(auto.getId(), (id, cached) -> {
+            Long invalidatedAt = tombstones.getIfPresent(auto.getId());
+            if (invalidatedAt != null && invalidatedAt > ticket) {
+                return cached;
+            }
+            return cached instanceof AutoResponseDTO current && version(current) > version(auto) ? current : auto;
+        });
+    }
+
+    private static long version(AutoResponseDTO auto) {
+        return auto.getVersion() != null ? auto.getVersion() : -1;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private CaffeineCache caffeineCache() {
+        return cacheManager.getCache(CacheConfig.AUTO_CACHE) instanceof CaffeineCache cache ? cache : null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoChangesDTO;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service per il feed delle modifiche del catalogo.
+ * Ogni modifica viene registrata in una tabella outbox nella stessa transazione; i consumatori la leggono
+ * a partire dall'ultima sequenza già letta, quindi ricevono solo le modifiche e non l'intero catalogo.
+ */
+public interface AutoChangeService {
+    /**
+     * Legge le modifiche successive al cursore indicato.
+     * @param after Ultima sequenza già letta (0 per iniziare dalla prima modifica)
+     * @param limit Numero massimo di modifiche
+     * @return Modifiche in ordine di sequenza con il cursore per il blocco successivo
+     * @throws InvalidQueryParameterException Se il cursore è negativo o il limite non è positivo
+     */
+    AutoChangesDTO findChanges(long after, int limit);
+
+    /**
+     * Come {@link #findChanges}, ma se non ci sono modifiche successive al cursore attende la prossima
+     * modifica confermata, al massimo per il tempo indicato (long-poll).
+     * @param after Ultima sequenza già letta
+     * @param limit Numero massimo di modifiche
+     * @param wait Attesa massima se non ci sono modifiche
+     * @return Modifiche trovate, vuote se l'attesa scade senza modifiche
+     * @throws InvalidQueryParameterException Se il cursore è negativo o il limite non è positivo
+     */
+    CompletableFuture<AutoChangesDTO> awaitChanges(long after, int limit, Duration wait);
+}
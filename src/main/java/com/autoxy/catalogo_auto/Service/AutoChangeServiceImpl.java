@@ -0,0 +1,184 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoChangeDTO;
+import com.autoxy.catalogo_auto.DTO.AutoChangesDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Model.AutoChange;
+import com.autoxy.catalogo_auto.Model.AutoChangeHead;
+import com.autoxy.catalogo_auto.Repository.AutoChangeRepository;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementazione del feed delle modifiche con una tabella outbox ({@link AutoChange}).
+ * <p>
+ * Le righe vengono scritte alla pubblicazione di {@link AutoChangedEvent}, dentro la transazione della modifica:
+ * {@code save}, {@code update}, {@code deleteById}, gli aggiornamenti massivi e l'importazione.
+ * Le sequenze sono assegnate sotto il lock di {@link AutoChangeHead}, quindi sono confermate in ordine
+ * e il cursore di un consumatore non salta mai una modifica confermata più tardi.
+ * </p>
+ * <p>
+ * L'attesa del long-poll non occupa thread: ogni richiesta si aggancia al future della prossima modifica
+ * confermata, completato una sola volta dopo il commit per tutte le richieste in attesa. La lettura
+ * successiva viene eseguita sull'executor dei task dell'applicazione, non sul thread che ha confermato la modifica.
+ * </p>
+ */
+@Service
+public class AutoChangeServiceImpl implements AutoChangeService {
+
+    /**
+     * Numero massimo di ID per query quando si legge lo stato delle auto di un aggiornamento massivo.
+     */
+    static final int SNAPSHOT_CHUNK_SIZE = 1000;
+
+    @Autowired
+    AutoChangeRepository autoChangeRepository;
+
+    @Autowired
+    AutoRepository autoRepository;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    Executor executor;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${catalogo.changes.max-limit:1000}")
+    int maxLimit;
+
+    @Value("${catalogo.changes.max-wait:30s}")
+    Duration maxWait;
+
+    private final AtomicReference<CompletableFuture<Void>> nextCommit = new AtomicReference<>(new CompletableFuture<>());
+
+    /**
+     * Registra la modifica nella tabella outbox, nella transazione di chi l'ha pubblicata: se la modifica
+     * viene annullata, viene annullata anche la registrazione. Per gli aggiornamenti massivi, che non
+     * portano lo stato delle auto, lo stato viene letto nella stessa transazione dopo l'UPDATE.
+     * @param event Modifica appena eseguita
+     * @throws IllegalStateException Se la riga di {@link AutoChangeHead} non è stata inizializzata
+     */
+    @EventListener
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void onAutoChanged(AutoChangedEvent event) {
+        AutoChangeHead head = entityManager.find(AutoChangeHead.class, AutoChangeHead.ID, LockModeType.PESSIMISTIC_WRITE);
+        if (head == null) {
+            throw new IllegalStateException("Contatore delle modifiche del catalogo non inizializzato");
+        }
+        Instant now = Instant.now();
+        long sequence = head.getLastSequence();
+        if (event.type() == AutoChangedEvent.Type.DELETED) {
+            for (Long id : event.ids()) {
+                entityManager.persist(change(++sequence, event.type(), id, now, null));
+            }
+        } else {
+            for (AutoResponseDTO auto : snapshots(event)) {
+                entityManager.persist(change(++sequence, event.type(), auto.getId(), now, auto));
+            }
+        }
+        head.setLastSequence(sequence);
+        entityManager.flush();
+    }
+
+    /**
+     * Completa l'attesa delle richieste di long-poll dopo il commit di una modifica.
+     * @param event Modifica confermata
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutoChangeCommitted(AutoChangedEvent event) {
+        nextCommit.getAndSet(new CompletableFuture<>()).complete(null);
+    }
+
+    /**
+     * Legge le modifiche successive al cursore, al massimo {@code catalogo.changes.max-limit} per volta.
+     * @param after Ultima sequenza già letta (0 per iniziare dalla prima modifica)
+     * @param limit Numero massimo di modifiche
+     * @return Modifiche in ordine di sequenza con il cursore per il blocco successivo
+     */
+    @Override
+    public AutoChangesDTO findChanges(long after, int limit) {
+        if (after < 0) {
+            throw new InvalidQueryParameterException("Il cursore delle modifiche non può essere negativo");
+        }
+        if (limit < 1) {
+            throw new InvalidQueryParameterException("Il numero di modifiche deve essere maggiore di 0");
+        }
+        List<AutoChangeDTO> changes = autoChangeRepository.findChangesAfter(after, Limit.of(Math.min(limit, maxLimit)));
+        return new AutoChangesDTO(changes, changes.isEmpty() ? after : changes.getLast().getSequence());
+    }
+
+    /**
+     * Il future della prossima modifica viene preso prima di leggere le modifiche: una modifica confermata
+     * tra la lettura e l'attesa completa comunque l'attesa. L'attesa è limitata a {@code catalogo.changes.max-wait}.
+     * @param after Ultima sequenza già letta
+     * @param limit Numero massimo di modifiche
+     * @param wait Attesa massima se non ci sono modifiche
+     * @return Modifiche trovate, vuote se l'attesa scade senza modifiche
+     */
+    @Override
+    public CompletableFuture<AutoChangesDTO> awaitChanges(long after, int limit, Duration wait) {
+        CompletableFuture<Void> commit = nextCommit.get();
+        AutoChangesDTO changes = findChanges(after, limit);
+        if (!changes.getChanges().isEmpty() || !wait.isPositive()) {
+            return CompletableFuture.completedFuture(changes);
+        }
+        long timeout = Math.min(wait.toMillis(), maxWait.toMillis());
+        return commit.thenApply(committed -> true)
+                .completeOnTimeout(false, timeout, TimeUnit.MILLISECONDS)
+                .thenApplyAsync(committed -> committed ? findChanges(after, limit) : changes, executor);
+    }
+
+    private List<AutoResponseDTO> snapshots(AutoChangedEvent event) {
+        if (!event.autos().isEmpty()) {
+            return event.autos();
+        }
+        List<AutoResponseDTO> autos = new ArrayList<>(event.ids().size());
+        for (int from = 0; from < event.ids().size(); from += SNAPSHOT_CHUNK_SIZE) {
+            autos.addAll(autoRepository.findResponsesByIdIn(
+                    event.ids().subList(from, Math.min(from + SNAPSHOT_CHUNK_SIZE, event.ids().size()))));
+        }
+        return autos;
+    }
+
+    private static AutoChange change(long sequence, AutoChangedEvent.Type type, Long autoId, Instant changedAt,
+                                     AutoResponseDTO auto) {
+        AutoChange change = new AutoChange();
+        change.setSequence(sequence);
+        change.setType(type);
+        change.setAutoId(autoId);
+        change.setChangedAt(changedAt);
+        if (auto != null) {
+            change.setMarca(auto.getMarca());
+            change.setModello(auto.getModello());
+            change.setAnnoProduzione(auto.getAnnoProduzione());
+            change.setPrezzo(auto.getPrezzo());
+            change.setStato(StatoAuto.valueOf(auto.getStato()));
+            change.setVersion(auto.getVersion());
+        }
+        return change;
+    }
+}
@@ -0,0 +1,28 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoImportReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service per l'importazione massiva di auto da feed esterni.
+ * Il contenuto viene letto in streaming e salvato a batch, senza caricarlo interamente in memoria.
+ */
+public interface AutoImportService {
+    /**
+     * Importa un array JSON di auto con la stessa struttura di {@code AutoRequestDTO}.
+     * @param input Contenuto dell'array JSON
+     * @return Esito dell'importazione con gli errori di ogni batch
+     * @throws IOException Se il contenuto non può essere letto
+     */
+    AutoImportReportDTO importJson(InputStream input) throws IOException;
+
+    /**
+     * Importa un file CSV con intestazione {@code marca,modello,annoProduzione,prezzo,stato}.
+     * @param input Contenuto del file CSV
+     * @return Esito dell'importazione con gli errori di ogni batch
+     * @throws IOException Se il contenuto non può essere letto
+     */
+    AutoImportReportDTO importCsv(InputStream input) throws IOException;
+}
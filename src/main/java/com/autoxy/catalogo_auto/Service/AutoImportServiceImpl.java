@@ -0,0 +1,181 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoImportBatchReportDTO;
+import com.autoxy.catalogo_auto.DTO.AutoImportReportDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implementazione dell'importazione massiva di auto.
+ * <p>
+ * Le righe vengono lette una alla volta con un {@link MappingIterator} di Jackson, validate con
+ * le stesse regole di {@link AutoRequestDTO} e raccolte in batch di {@code catalogo.import.batch-size}
+ * righe. Ogni batch è salvato in una propria transazione con un unico batch JDBC: gli ID arrivano
+ * dalla sequenza pooled di {@link Auto}, quindi Hibernate non deve eseguire un INSERT alla volta
+ * per leggere l'ID generato. Le righe non valide vengono scartate e riportate nell'esito del batch.
+ * </p>
+ */
+@Service
+public class AutoImportServiceImpl implements AutoImportService {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    AutoMapper autoMapper;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${catalogo.import.batch-size:1000}")
+    int batchSize;
+
+    /**
+     * Importa un array JSON di auto, letto elemento per elemento.
+     * @param input Contenuto dell'array JSON
+     * @return Esito dell'importazione con gli errori di ogni batch
+     * @throws IOException Se il contenuto non può essere letto
+     */
+    @Override
+    public AutoImportReportDTO importJson(InputStream input) throws IOException {
+        return importAll(objectMapper.readerFor(AutoRequestDTO.class).readValues(input));
+    }
+
+    /**
+     * Importa un file CSV con intestazione, letto riga per riga.
+     * @param input Contenuto del file CSV
+     * @return Esito dell'importazione con gli errori di ogni batch
+     * @throws IOException Se il contenuto non può essere letto
+     */
+    @Override
+    public AutoImportReportDTO importCsv(InputStream input) throws IOException {
+        return importAll(CSV_MAPPER.readerFor(AutoRequestDTO.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(input));
+    }
+
+    /**
+     * Legge tutte le righe e le salva a batch. Una riga con valori non convertibili viene scartata;
+     * un contenuto non più leggibile (ad esempio JSON malformato) interrompe l'importazione
+     * dopo aver salvato le righe valide del batch corrente.
+     */
+    private AutoImportReportDTO importAll(MappingIterator<AutoRequestDTO> iterator) throws IOException {
+        List<AutoImportBatchReportDTO> batches = new ArrayList<>();
+        List<Auto> autos = new ArrayList<>(batchSize);
+        List<String> errors = new ArrayList<>();
+        int row = 0;
+        int firstRow = 1;
+        try (iterator) {
+            while (true) {
+                try {
+                    if (!iterator.hasNextValue()) {
+                        break;
+                    }
+                    row++;
+                    AutoRequestDTO autoRequestDTO = iterator.nextValue();
+                    List<String> violations = validate(autoRequestDTO);
+                    if (violations.isEmpty()) {
+                        autos.add(autoMapper.toEntity(autoRequestDTO));
+                    } else {
+                        errors.add(error(row, String.join("; ", violations)));
+                    }
+                } catch (DatabindException e) {
+                    errors.add(error(row, e.getOriginalMessage()));
+                } catch (StreamReadException e) {
+                    errors.add(error(Math.max(row, 1), "contenuto non leggibile, importazione interrotta: "
+                            + e.getOriginalMessage()));
+                    break;
+                }
+                if (row - firstRow + 1 == batchSize) {
+                    batches.add(saveBatch(batches.size() + 1, firstRow, row, autos, errors));
+                    autos = new ArrayList<>(batchSize);
+                    errors = new ArrayList<>();
+                    firstRow = row + 1;
+                }
+            }
+        }
+        if (!autos.isEmpty() || !errors.isEmpty()) {
+            batches.add(saveBatch(batches.size() + 1, firstRow, row, autos, errors));
+        }
+        int imported = batches.stream().mapToInt(AutoImportBatchReportDTO::getImported).sum();
+        return new AutoImportReportDTO(row, imported, row - imported, batches);
+    }
+
+    /**
+     * Salva le auto valide di un batch in un'unica transazione e pubblica l'evento di creazione.
+     * Se il salvataggio fallisce, il batch viene annullato per intero e l'errore aggiunto al report.
+     */
+    private AutoImportBatchReportDTO saveBatch(int number, int firstRow, int lastRow, List<Auto> autos, List<String> errors) {
+        if (autos.isEmpty()) {
+            return new AutoImportBatchReportDTO(number, firstRow, lastRow, 0, true, errors);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                autos.forEach(entityManager::persist);
+                entityManager.flush();
+                eventPublisher.publishEvent(AutoChangedEvent.created(
+                        autos.stream().map(autoMapper::toResponseDTO).toList()));
+                entityManager.clear();
+            });
+            return new AutoImportBatchReportDTO(number, firstRow, lastRow, autos.size(), true, errors);
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            errors.add("Batch non salvato: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            return new AutoImportBatchReportDTO(number, firstRow, lastRow, 0, false, errors);
+        }
+    }
+
+    private List<String> validate(AutoRequestDTO autoRequestDTO) {
+        return validator.validate(autoRequestDTO).stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(AutoImportServiceImpl::describe)
+                .toList();
+    }
+
+    private static String describe(ConstraintViolation<AutoRequestDTO> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    private static String error(int row, String message) {
+        return "Riga " + row + ": " + message;
+    }
+}
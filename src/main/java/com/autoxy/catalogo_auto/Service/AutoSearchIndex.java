@@ -0,0 +1,721 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Repository.AutoFacetsRepository.FacetGroup;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import com.autoxy.catalogo_auto.Repository.AutoSpecifications;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice colonnare in memoria che risponde a {@link AutoService#search} senza accedere al database.
+ * <p>
+ * Ogni auto occupa una riga e i campi sono memorizzati per colonna: marca e modello come codici
+ * di un dizionario, anno come int, prezzo in centesimi come long e stato come una bitmap per ogni
+ * valore di {@link StatoAuto}. Le righe sono mantenute ordinate anche per (prezzo, id) e per id:
+ * un intervallo di prezzo si risolve con una ricerca binaria e gli ordinamenti per prezzo o per id
+ * non richiedono di ordinare i risultati.
+ * </p>
+ * <p>
+ * Risponde anche ai conteggi di {@link AutoService#facets}.
+ * Filtri e ordinamenti seguono le regole di {@link AutoSpecifications}, compreso l'ID come criterio
+ * di parità. L'indice viene costruito all'avvio e aggiornato dopo il commit di ogni {@link AutoChangedEvent};
+ * finché non è pronto, con {@code catalogo.search.index.enabled=false} o con un ordinamento che non gestisce,
+ * {@link #search} restituisce un Optional vuoto e la ricerca usa il database.
+ * </p>
+ */
+@Component
+public class AutoSearchIndex {
+
+    private static final Set<String> SORTABLE = Set.of("id", "marca", "modello", "annoProduzione", "prezzo", "stato");
+
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+
+    @Autowired
+    AutoRepository autoRepository;
+
+    @Autowired
+    AutoMapper autoMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${catalogo.search.index.enabled:true}")
+    boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    // Colonne, indicizzate per riga. Le righe delle auto eliminate vengono riutilizzate.
+    private long[] ids = new long[0];
+    private int[] marche = new int[0];
+    private int[] modelli = new int[0];
+    private int[] anni = new int[0];
+    private long[] prezzi = new long[0];
+    private long[] versioni = new long[0];
+    private final Map<StatoAuto, BitSet> stati = new EnumMap<>(StatoAuto.class);
+    private final Dictionary marcaDictionary = new Dictionary();
+    private final Dictionary modelloDictionary = new Dictionary();
+    private int rowCount;
+    private int[] freeRows = new int[0];
+    private int freeCount;
+
+    // ID delle auto eliminate: gli ID non vengono riutilizzati, quindi una lapide non scade mai
+    private final Set<Long> tombstones = new HashSet<>();
+
+    // Righe vive ordinate per (prezzo, id) e per id
+    private final RowOrder byPrezzo = new RowOrder(this::comparePrezzoThenId);
+    private final RowOrder byId = new RowOrder((a, b) -> Long.compare(ids[a], ids[b]));
+
+    /**
+     * Costruisce l'indice leggendo il catalogo a blocchi ordinati per ID, dal database primario
+     * (vedi {@link #primaryTransaction()}).
+     * Le modifiche confermate durante la costruzione attendono il lock e vengono applicate subito dopo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+            primaryTransaction().executeWithoutResult(status -> {
+                List<AutoResponseDTO> chunk = autoRepository.findResponsesByIdGreaterThan(0L, Limit.of(LOAD_CHUNK_SIZE));
+                while (!chunk.isEmpty()) {
+                    upsertAll(chunk);
+                    chunk = chunk.size() < LOAD_CHUNK_SIZE ? List.of()
+                            : autoRepository.findResponsesByIdGreaterThan(chunk.get(chunk.size() - 1).getId(),
+                            Limit.of(LOAD_CHUNK_SIZE));
+                }
+            });
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applica una modifica confermata. Gli aggiornamenti massivi non contengono lo stato delle auto,
+     * che viene riletto dal database primario in una nuova transazione (vedi {@link #primaryTransaction()}).
+     * I listener di due transazioni concorrenti possono essere eseguiti in ordine inverso rispetto ai commit:
+     * come in {@link AutoCache}, un'auto non sostituisce quella indicizzata con versione più alta
+     * e un'auto eliminata non rientra nell'indice (vedi {@link #upsertAll}).
+     * Il listener precede {@link CatalogVersion#onAutoChanged}: una ricerca che legge la nuova generazione
+     * del catalogo trova l'indice già aggiornato, e non mette in cache la pagina precedente con la nuova chiave.
+     *
+     * @param event Modifica confermata
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutoChanged(AutoChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<AutoResponseDTO> autos = event.type() == AutoChangedEvent.Type.UPDATED && event.autos().isEmpty()
+                ? reload(event.ids())
+                : event.autos();
+        lock.writeLock().lock();
+        try {
+            if (event.type() == AutoChangedEvent.Type.DELETED) {
+                deleteAll(event.ids());
+            } else {
+                upsertAll(autos);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Esegue la ricerca sull'indice.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati
+     * @param pageable Paginazione e ordinamento dei risultati
+     * @return Pagina di risultati, oppure vuoto se la ricerca deve usare il database
+     */
+    public Optional<Page<AutoResponseDTO>> search(AutoSearchCriteriaDTO criteria, Pageable pageable) {
+        if (!ready || pageable.isUnpaged() || !isSupported(pageable.getSort())) {
+            return Optional.empty();
+        }
+        List<Sort.Order> orders = AutoSpecifications.withIdTieBreak(pageable).getSort().toList();
+        lock.readLock().lock();
+        try {
+            Filter filter = filter(criteria);
+            int offset = Math.toIntExact(Math.min(pageable.getOffset(), Integer.MAX_VALUE));
+            int[] page;
+            int total;
+            if (filter == null) {
+                page = new int[0];
+                total = 0;
+            } else if (isOrderedBy(orders, "prezzo") || isOrderedBy(orders, "id") || orders.isEmpty()) {
+                RowOrder order = orders.isEmpty() || orders.get(0).getProperty().equals("id") ? byId : byPrezzo;
+                boolean descending = !orders.isEmpty() && orders.get(0).isDescending();
+                OrderedScan scan = scan(order, descending, filter, offset, pageable.getPageSize());
+                page = scan.page();
+                total = scan.total();
+            } else {
+                int[] matches = matches(filter);
+                total = matches.length;
+                page = sortedWindow(matches, comparator(orders), offset, pageable.getPageSize());
+            }
+            List<AutoResponseDTO> content = new ArrayList<>(page.length);
+            for (int row : page) {
+                content.add(toResponseDTO(row));
+            }
+            return Optional.of(new PageImpl<>(content, pageable, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conta le auto che soddisfano i criteri per marca, stato e fascia di prezzo, con un solo passaggio
+     * sulle righe dell'intervallo di prezzo richiesto: scorrendole per prezzo crescente, la fascia
+     * corrente avanza insieme alle righe.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati
+     * @param prezzoLimits Limiti delle fasce di prezzo, in ordine crescente
+     * @return Un gruppo per ogni combinazione di marca e stato presente, oppure vuoto se il conteggio deve usare il database
+     */
+    public Optional<List<FacetGroup>> facets(AutoSearchCriteriaDTO criteria, List<BigDecimal> prezzoLimits) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long[] limits = prezzoLimits.stream().mapToLong(limit -> cents(limit, RoundingMode.CEILING)).toArray();
+        StatoAuto[] statoValues = StatoAuto.values();
+        lock.readLock().lock();
+        try {
+            Filter filter = filter(criteria);
+            if (filter == null) {
+                return Optional.of(List.of());
+            }
+            // Chiave: codice della marca e stato; valore: totale seguito dai conteggi per fascia
+            Map<Integer, long[]> counts = new HashMap<>();
+            int to = byPrezzo.upperBound(filter.prezzoMax());
+            int bucket = 0;
+            for (int i = byPrezzo.lowerBound(filter.prezzoMin()); i < to; i++) {
+                int row = byPrezzo.rows[i];
+                if (!matches(filter, row)) {
+                    continue;
+                }
+                while (bucket < limits.length && prezzi[row] >= limits[bucket]) {
+                    bucket++;
+                }
+                long[] group = counts.computeIfAbsent(marche[row] * statoValues.length + stato(row).ordinal(),
+                        key -> new long[limits.length + 2]);
+                group[0]++;
+                group[bucket + 1]++;
+            }
+            List<FacetGroup> groups = new ArrayList<>(counts.size());
+            counts.forEach((key, group) -> groups.add(new FacetGroup(
+                    marcaDictionary.value(key / statoValues.length), statoValues[key % statoValues.length],
+                    group[0], Arrays.copyOfRange(group, 1, group.length))));
+            return Optional.of(groups);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Numero di auto nell'indice
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isSupported(Sort sort) {
+        return sort.stream().allMatch(order -> SORTABLE.contains(order.getProperty())
+                && !order.isIgnoreCase()
+                && order.getNullHandling() == Sort.NullHandling.NATIVE);
+    }
+
+    /**
+     * Vero se l'ordinamento è il solo campo indicato seguito dall'ID nella stessa direzione,
+     * cioè l'ordine in cui sono già mantenute le righe di {@link #byPrezzo} e {@link #byId}.
+     */
+    private static boolean isOrderedBy(List<Sort.Order> orders, String property) {
+        if (orders.isEmpty() || !orders.get(0).getProperty().equals(property)) {
+            return false;
+        }
+        if (property.equals("id")) {
+            return orders.size() == 1;
+        }
+        return orders.size() == 2 && orders.get(1).getProperty().equals("id")
+                && orders.get(1).getDirection() == orders.get(0).getDirection();
+    }
+
+    // ---- Filtri -------------------------------------------------------------------------------
+
+    /**
+     * Filtri tradotti sulle colonne: codici di dizionario ammessi, intervalli e bitmap dello stato.
+     * Il prezzo è confrontato in centesimi, arrotondando i limiti verso l'interno dell'intervallo.
+     */
+    private record Filter(BitSet marche, BitSet modelli, int annoMin, int annoMax,
+                          long prezzoMin, long prezzoMax, BitSet stato) {
+    }
+
+    /**
+     * @return Filtro sulle colonne, oppure null se nessuna riga può soddisfare i criteri
+     */
+    private Filter filter(AutoSearchCriteriaDTO criteria) {
+        BitSet marcheAmmesse = criteria.getMarca() == null ? null
+                : marcaDictionary.codesFor(criteria.getMarca().toLowerCase());
+        BitSet modelliAmmessi = criteria.getModello() == null ? null
+                : modelloDictionary.codesFor(criteria.getModello().toLowerCase());
+        if ((marcheAmmesse != null && marcheAmmesse.isEmpty()) || (modelliAmmessi != null && modelliAmmessi.isEmpty())) {
+            return null;
+        }
+        return new Filter(marcheAmmesse, modelliAmmessi,
+                criteria.getAnnoMin() == null ? Integer.MIN_VALUE : criteria.getAnnoMin(),
+                criteria.getAnnoMax() == null ? Integer.MAX_VALUE : criteria.getAnnoMax(),
+                criteria.getPrezzoMin() == null ? Long.MIN_VALUE : cents(criteria.getPrezzoMin(), RoundingMode.CEILING),
+                criteria.getPrezzoMax() == null ? Long.MAX_VALUE : cents(criteria.getPrezzoMax(), RoundingMode.FLOOR),
+                criteria.getStato() == null ? null : stati.get(criteria.getStato()));
+    }
+
+    private boolean matches(Filter filter, int row) {
+        return (filter.marche() == null || filter.marche().get(marche[row]))
+                && (filter.modelli() == null || filter.modelli().get(modelli[row]))
+                && anni[row] >= filter.annoMin() && anni[row] <= filter.annoMax()
+                && prezzi[row] >= filter.prezzoMin() && prezzi[row] <= filter.prezzoMax()
+                && (filter.stato() == null || filter.stato().get(row));
+    }
+
+    /**
+     * Righe che soddisfano il filtro, partendo dall'intervallo di prezzo su {@link #byPrezzo}.
+     */
+    private int[] matches(Filter filter) {
+        int from = byPrezzo.lowerBound(filter.prezzoMin());
+        int to = byPrezzo.upperBound(filter.prezzoMax());
+        int[] matches = new int[Math.max(to - from, 0)];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int row = byPrezzo.rows[i];
+            if (matches(filter, row)) {
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private record OrderedScan(int[] page, int total) {
+    }
+
+    /**
+     * Scorre le righe nell'ordine già mantenuto, contando i risultati e raccogliendo solo quelli della pagina.
+     * Su {@link #byPrezzo} scorre soltanto l'intervallo di prezzo richiesto.
+     */
+    private OrderedScan scan(RowOrder order, boolean descending, Filter filter, int offset, int pageSize) {
+        int from = order == byPrezzo ? byPrezzo.lowerBound(filter.prezzoMin()) : 0;
+        int to = order == byPrezzo ? byPrezzo.upperBound(filter.prezzoMax()) : order.size;
+        int[] page = new int[pageSize];
+        int pageCount = 0;
+        int total = 0;
+        for (int i = 0; i < to - from; i++) {
+            int row = order.rows[descending ? to - 1 - i : from + i];
+            if (matches(filter, row)) {
+                if (total >= offset && pageCount < pageSize) {
+                    page[pageCount++] = row;
+                }
+                total++;
+            }
+        }
+        return new OrderedScan(Arrays.copyOf(page, pageCount), total);
+    }
+
+    private static int[] sortedWindow(int[] rows, Comparator<Integer> comparator, int offset, int pageSize) {
+        if (offset >= rows.length) {
+            return new int[0];
+        }
+        return Arrays.stream(rows).boxed().sorted(comparator)
+                .skip(offset).limit(pageSize)
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    // ---- Ordinamento --------------------------------------------------------------------------
+
+    private Comparator<Integer> comparator(List<Sort.Order> orders) {
+        Comparator<Integer> comparator = null;
+        for (Sort.Order order : orders) {
+            Comparator<Integer> next = switch (order.getProperty()) {
+                case "id" -> (a, b) -> Long.compare(ids[a], ids[b]);
+                case "marca" -> (a, b) -> marcaDictionary.compare(marche[a], marche[b]);
+                case "modello" -> (a, b) -> modelloDictionary.compare(modelli[a], modelli[b]);
+                case "annoProduzione" -> (a, b) -> Integer.compare(anni[a], anni[b]);
+                case "prezzo" -> (a, b) -> Long.compare(prezzi[a], prezzi[b]);
+                case "stato" -> (a, b) -> stato(a).name().compareTo(stato(b).name());
+                default -> throw new IllegalStateException("Ordinamento non gestito: " + order.getProperty());
+            };
+            next = order.isDescending() ? next.reversed() : next;
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private int comparePrezzoThenId(int a, int b) {
+        int byPrezzoValue = Long.compare(prezzi[a], prezzi[b]);
+        return byPrezzoValue != 0 ? byPrezzoValue : Long.compare(ids[a], ids[b]);
+    }
+
+    // ---- Aggiornamento ------------------------------------------------------------------------
+
+    private List<AutoResponseDTO> reload(List<Long> ids) {
+        TransactionTemplate primary = primaryTransaction();
+        List<AutoResponseDTO> autos = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            primary.executeWithoutResult(status -> autoRepository.findAllById(chunk)
+                    .forEach(auto -> autos.add(autoMapper.toResponseDTO(auto))));
+        }
+        return autos;
+    }
+
+    /**
+     * Nuova transazione per le letture dell'indice. Non è di sola lettura, quindi con una replica configurata
+     * (vedi {@link com.autoxy.catalogo_auto.Config.ReplicaDataSourceConfig}) legge dal primario: una replica
+     * in ritardo lascerebbe nell'indice lo stato precedente delle auto, che nessuna modifica successiva correggerebbe.
+     */
+    private TransactionTemplate primaryTransaction() {
+        TransactionTemplate primary = new TransactionTemplate(transactionManager);
+        primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return primary;
+    }
+
+    /**
+     * Inserisce o sostituisce le auto indicate: le righe esistenti escono dagli ordinamenti,
+     * vengono aggiornate e rientrano insieme alle nuove con un'unica fusione ordinata.
+     * Vengono ignorate le auto già eliminate e quelle con versione inferiore alla riga indicizzata,
+     * arrivate da un listener eseguito dopo quello di una modifica successiva.
+     */
+    private void upsertAll(List<AutoResponseDTO> autos) {
+        BitSet changed = new BitSet();
+        List<AutoResponseDTO> applied = new ArrayList<>(autos.size());
+        int[] rows = new int[autos.size()];
+        for (AutoResponseDTO auto : autos) {
+            if (tombstones.contains(auto.getId())) {
+                continue;
+            }
+            int row = byId.find(auto.getId(), ids);
+            if (row >= 0) {
+                if (versioni[row] > auto.getVersion()) {
+                    continue;
+                }
+                changed.set(row);
+            }
+            rows[applied.size()] = row;
+            applied.add(auto);
+        }
+        rows = Arrays.copyOf(rows, applied.size());
+        byPrezzo.removeAll(changed);
+        byId.removeAll(changed);
+        for (int i = 0; i < applied.size(); i++) {
+            int row = rows[i] >= 0 ? rows[i] : allocateRow();
+            write(row, applied.get(i));
+            rows[i] = row;
+        }
+        byPrezzo.insertAll(rows);
+        byId.insertAll(rows);
+    }
+
+    private void deleteAll(List<Long> deletedIds) {
+        tombstones.addAll(deletedIds);
+        BitSet deleted = new BitSet();
+        for (Long id : deletedIds) {
+            int row = byId.find(id, ids);
+            if (row >= 0) {
+                deleted.set(row);
+            }
+        }
+        byPrezzo.removeAll(deleted);
+        byId.removeAll(deleted);
+        deleted.stream().forEach(row -> {
+            stati.values().forEach(bitmap -> bitmap.clear(row));
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, Math.max(16, freeCount * 2));
+            }
+            freeRows[freeCount++] = row;
+        });
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == ids.length) {
+            int capacity = Math.max(1024, rowCount * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            marche = Arrays.copyOf(marche, capacity);
+            modelli = Arrays.copyOf(modelli, capacity);
+            anni = Arrays.copyOf(anni, capacity);
+            prezzi = Arrays.copyOf(prezzi, capacity);
+            versioni = Arrays.copyOf(versioni, capacity);
+        }
+        return rowCount++;
+    }
+
+    private void write(int row, AutoResponseDTO auto) {
+        ids[row] = auto.getId();
+        marche[row] = marcaDictionary.code(auto.getMarca());
+        modelli[row] = modelloDictionary.code(auto.getModello());
+        anni[row] = auto.getAnnoProduzione();
+        prezzi[row] = cents(auto.getPrezzo(), RoundingMode.HALF_UP);
+        versioni[row] = auto.getVersion();
+        StatoAuto stato = StatoAuto.valueOf(auto.getStato());
+        stati.forEach((value, bitmap) -> bitmap.set(row, value == stato));
+    }
+
+    private void clear() {
+        ready = false;
+        rowCount = 0;
+        freeCount = 0;
+        byPrezzo.size = 0;
+        byId.size = 0;
+        marcaDictionary.clear();
+        modelloDictionary.clear();
+        stati.clear();
+        for (StatoAuto stato : StatoAuto.values()) {
+            stati.put(stato, new BitSet());
+        }
+    }
+
+    private StatoAuto stato(int row) {
+        for (Map.Entry<StatoAuto, BitSet> entry : stati.entrySet()) {
+            if (entry.getValue().get(row)) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Riga senza stato: " + row);
+    }
+
+    private AutoResponseDTO toResponseDTO(int row) {
+        return new AutoResponseDTO(ids[row], marcaDictionary.value(marche[row]), modelloDictionary.value(modelli[row]),
+                anni[row], BigDecimal.valueOf(prezzi[row], 2), stato(row).name(), versioni[row]);
+    }
+
+    /**
+     * Prezzo in centesimi, come memorizzato dalla colonna a due decimali.
+     */
+    private static long cents(BigDecimal prezzo, RoundingMode roundingMode) {
+        BigDecimal cents = prezzo.setScale(2, roundingMode).movePointRight(2);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        return cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0 ? Long.MIN_VALUE : cents.longValue();
+    }
+
+    /**
+     * Dizionario di stringhe: ogni valore distinto riceve un codice intero. Per i filtri case-insensitive
+     * tiene i codici di ogni valore in minuscolo, per gli ordinamenti il rango di ogni codice
+     * nell'ordine dei valori.
+     */
+    private static final class Dictionary {
+
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final Map<String, BitSet> codesByNormalized = new HashMap<>();
+        private int[] ranks;
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+                codesByNormalized.computeIfAbsent(value.toLowerCase(), key -> new BitSet()).set(code);
+                ranks = null;
+            }
+            return code;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        BitSet codesFor(String normalized) {
+            return codesByNormalized.getOrDefault(normalized, new BitSet());
+        }
+
+        /**
+         * Confronta due codici secondo l'ordine dei rispettivi valori. I ranghi vengono ricalcolati
+         * dopo l'aggiunta di un valore, sotto il lock di scrittura o alla prima lettura successiva.
+         */
+        int compare(int a, int b) {
+            int[] current = ranks;
+            if (current == null) {
+                current = rank();
+            }
+            return Integer.compare(current[a], current[b]);
+        }
+
+        private synchronized int[] rank() {
+            if (ranks == null) {
+                Integer[] sorted = new Integer[values.size()];
+                Arrays.setAll(sorted, i -> i);
+                Arrays.sort(sorted, Comparator.comparing(values::get));
+                int[] computed = new int[sorted.length];
+                for (int rank = 0; rank < sorted.length; rank++) {
+                    computed[sorted[rank]] = rank;
+                }
+                ranks = computed;
+            }
+            return ranks;
+        }
+
+        void clear() {
+            values.clear();
+            codes.clear();
+            codesByNormalized.clear();
+            ranks = null;
+        }
+    }
+
+    /**
+     * Confronto tra due righe dell'indice.
+     */
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Righe vive mantenute ordinate secondo un {@link RowComparator} totale.
+     */
+    private final class RowOrder {
+
+        private final RowComparator comparator;
+        private int[] rows = new int[0];
+        private int size;
+
+        RowOrder(RowComparator comparator) {
+            this.comparator = comparator;
+        }
+
+        /**
+         * Cerca la riga con l'ID indicato; valido solo sull'ordinamento per ID.
+         * @return Riga trovata, oppure -1
+         */
+        int find(long id, long[] idColumn) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = idColumn[rows[mid]];
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return rows[mid];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return Prima posizione con prezzo maggiore o uguale a quello indicato; valido solo su {@link #byPrezzo}
+         */
+        int lowerBound(long prezzo) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prezzi[rows[mid]] < prezzo) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return Prima posizione con prezzo maggiore di quello indicato; valido solo su {@link #byPrezzo}
+         */
+        int upperBound(long prezzo) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prezzi[rows[mid]] <= prezzo) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void removeAll(BitSet removed) {
+            if (removed.isEmpty()) {
+                return;
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.get(rows[i])) {
+                    rows[kept++] = rows[i];
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Ordina le nuove righe e le fonde con quelle esistenti in un solo passaggio.
+         */
+        void insertAll(int[] added) {
+            Integer[] sorted = Arrays.stream(added).boxed().toArray(Integer[]::new);
+            Arrays.sort(sorted, comparator::compare);
+            int[] merged = new int[Math.max(rows.length, size + added.length)];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < size || j < sorted.length) {
+                if (j == sorted.length || (i < size && comparator.compare(rows[i], sorted[j]) <= 0)) {
+                    merged[k++] = rows[i++];
+                } else {
+                    merged[k++] = sorted[j++];
+                }
+            }
+            rows = merged;
+            size = k;
+        }
+    }
+}
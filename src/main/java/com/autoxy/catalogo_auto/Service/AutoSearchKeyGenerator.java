@@ -0,0 +1,92 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Genera le chiavi della cache dei risultati di {@link AutoService#search} e {@link AutoService#facets}.
+ * <p>
+ * La chiave è la tupla dei filtri normalizzata (marca e modello in minuscolo come nella ricerca,
+ * prezzi senza zeri decimali superflui) più il secondo parametro del metodo (la paginazione
+ * o i limiti delle fasce di prezzo, con l'eventuale modalità di conteggio e i campi richiesti)
+ * e la generazione corrente del catalogo. Dopo una scrittura la generazione cambia e le voci precedenti
+ * non vengono più lette; escono dalla cache per dimensione o scadenza.
+ * </p>
+ */
+@Component(AutoSearchKeyGenerator.BEAN_NAME)
+public class AutoSearchKeyGenerator implements KeyGenerator {
+
+    /**
+     * Nome del bean, da usare in {@code @Cacheable(keyGenerator = ...)}.
+     */
+    public static final String BEAN_NAME = "autoSearchKeyGenerator";
+
+    @Autowired
+    CatalogVersion catalogVersion;
+
+    /**
+     * Chiave normalizzata di una ricerca.
+     */
+    record Key(long generation, String marca, String modello, Integer annoMin, Integer annoMax,
+               BigDecimal prezzoMin, BigDecimal prezzoMax, StatoAuto stato, Object options) {
+    }
+
+    /**
+     * Costruisce la chiave a partire dai parametri di {@code search(criteria, pageable, conteggio, fields)}
+     * o di {@code facets(criteria, prezzoLimits)}.
+     */
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Object options = params.length > 2
+                ? Stream.concat(Stream.of(options(params[1])), Arrays.stream(params, 2, params.length)).toList()
+                : options(params[1]);
+        return key(catalogVersion.current(), (AutoSearchCriteriaDTO) params[0], options);
+    }
+
+    /**
+     * Chiave normalizzata dei soli filtri, senza generazione né paginazione: resta valida dopo le scritture
+     * e identifica il totale stimato di una ricerca ({@link com.autoxy.catalogo_auto.Config.CacheConfig#SEARCH_COUNT_CACHE}).
+     *
+     * @param criteria Filtri della ricerca
+     * @return Chiave dei filtri
+     */
+    public static Object countKey(AutoSearchCriteriaDTO criteria) {
+        return key(0, criteria, null);
+    }
+
+    private static Key key(long generation, AutoSearchCriteriaDTO criteria, Object options) {
+        return new Key(generation,
+                lowerCase(criteria.getMarca()),
+                lowerCase(criteria.getModello()),
+                criteria.getAnnoMin(),
+                criteria.getAnnoMax(),
+                normalize(criteria.getPrezzoMin()),
+                normalize(criteria.getPrezzoMax()),
+                criteria.getStato(),
+                options);
+    }
+
+    private static Object options(Object options) {
+        if (options instanceof List<?> prezzoLimits) {
+            return prezzoLimits.stream().map(limit -> normalize((BigDecimal) limit)).toList();
+        }
+        return options;
+    }
+
+    private static String lowerCase(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros() : null;
+    }
+}
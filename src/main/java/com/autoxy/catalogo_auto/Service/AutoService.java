@@ -1,14 +1,26 @@
 package com.autoxy.catalogo_auto.Service;
 
+import com.autoxy.catalogo_auto.DTO.AutoBulkResultDTO;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoFacetsDTO;
+import com.autoxy.catalogo_auto.DTO.AutoKeysetPageDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
 import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRepriceRequestDTO;
 import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
-import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Service layer per la gestione delle automobili.
@@ -17,9 +29,18 @@ import java.util.NoSuchElementException;
 public interface AutoService {
     /**
      * Recupera tutte le auto
+     * @param fields Campi da leggere, validati con {@link AutoResponseDTO#fields}; gli altri non vengono serializzati
      * @return Lista di AutoResponseDTO
      */
-    List<AutoResponseDTO> findAll();
+    List<AutoResponseDTO> findAll(Set<String> fields);
+
+    /**
+     * Scorre l'intero catalogo a blocchi, ordinato per ID.
+     * I blocchi vengono letti dal database solo quando lo stream li consuma,
+     * quindi la memoria occupata non dipende dalla dimensione della tabella.
+     * @return Stream lazy di AutoResponseDTO
+     */
+    Stream<AutoResponseDTO> streamAll();
 
     /**
      * Cerca un'auto per ID
@@ -39,10 +60,28 @@ public interface AutoService {
      * Aggiorna un'auto esistente
      * @param id Identificativo auto da aggiornare
      * @param autoRequestDTO DTO con i nuovi dati
+     * @param expectedVersions Versioni a cui l'aggiornamento può essere applicato (If-Match);
+     *                         null per aggiornare qualunque versione
      * @return AutoResponseDTO aggiornata
-     * @throws NoSuchElementException se l'auto non esiste
+     * Un ID inesistente non produce errori né modifiche nel feed.
+     * @throws OptimisticLockingFailureException se la versione dell'auto non è tra quelle attese
+     *         o l'auto è stata modificata da un'altra transazione durante l'aggiornamento
+     */
+    AutoResponseDTO update(Long id, AutoRequestDTO autoRequestDTO, Collection<Long> expectedVersions);
+
+    /**
+     * Imposta lo stato di più auto con un'unica operazione sul database.
+     * @param request ID delle auto e nuovo stato
+     * @return Numero di auto modificate
+     */
+    AutoBulkResultDTO updateStato(AutoBulkStatoRequestDTO request);
+
+    /**
+     * Varia in percentuale il prezzo di tutte le auto di una marca con un'unica operazione sul database.
+     * @param request Marca (case-insensitive) e percentuale di variazione
+     * @return Numero di auto modificate
      */
-    AutoResponseDTO update(Long id, AutoRequestDTO autoRequestDTO);
+    AutoBulkResultDTO reprice(AutoRepriceRequestDTO request);
 
     /**
      * Elimina un'auto per ID
@@ -52,14 +91,42 @@ public interface AutoService {
 
     /**
      * Ricerca auto con filtri opzionali e restituisce i risultati paginati.
+     * Con un conteggio diverso da {@link ConteggioTotale#ESATTO} il totale può essere approssimato:
+     * la pagina restituita lo indica (vedi {@link com.autoxy.catalogo_auto.DTO.AutoSearchPageDTO}).
      *
-     * @param marca Marca dell'auto (case-insensitive). Se null, ignora il filtro.
-     * @param prezzoMin Prezzo minimo. Se null, ignora il filtro.
-     * @param prezzoMax Prezzo massimo. Se null, ignora il filtro.
-     * @param stato Stato dell'auto. Se null, ignora il filtro.
+     * @param criteria Filtri della ricerca (marca, modello, anno, prezzo, stato); i campi null non vengono applicati.
      * @param pageable Paginazione e ordinamento dei risultati.
+     * @param conteggio Modalità di calcolo del totale.
+     * @param fields Campi da leggere, validati con {@link AutoResponseDTO#fields}; gli altri non vengono serializzati.
      * @return Pagina di risultati contenente DTO delle auto che soddisfano i criteri.
      * @throws NoSuchElementException Se nessuna auto viene trovata.
      */
-    Page<AutoResponseDTO> search(String marca, BigDecimal prezzoMin, BigDecimal prezzoMax, StatoAuto stato, Pageable pageable);
-}
\ No newline at end of file
+    Page<AutoResponseDTO> search(AutoSearchCriteriaDTO criteria, Pageable pageable, ConteggioTotale conteggio,
+                                 Set<String> fields);
+
+    /**
+     * Ricerca auto con filtri opzionali e paginazione keyset (seek).
+     * Ogni pagina riparte dalla coppia (valore di ordinamento, id) dell'ultima auto letta,
+     * quindi il costo non dipende dalla profondità della pagina e non viene eseguita alcuna COUNT.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param sort Campo di ordinamento (id, marca, modello, annoProduzione, prezzo). Ignorato se è presente il cursore.
+     * @param direction Direzione di ordinamento. Ignorata se è presente il cursore.
+     * @param size Numero massimo di auto per pagina.
+     * @param cursor Cursore restituito dalla pagina precedente. Se null, parte dalla prima pagina.
+     * @return Pagina di risultati con il cursore per la pagina successiva.
+     * @throws NoSuchElementException Se nessuna auto viene trovata.
+     * @throws InvalidQueryParameterException Se il campo di ordinamento, la dimensione o il cursore non sono validi.
+     */
+    AutoKeysetPageDTO searchKeyset(AutoSearchCriteriaDTO criteria, String sort, Sort.Direction direction, int size, String cursor);
+
+    /**
+     * Conta le auto che soddisfano i criteri per marca, stato e fascia di prezzo.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param prezzoLimits Limiti delle fasce di prezzo in ordine crescente; se null o vuoto si usano quelli configurati.
+     * @return Totale e conteggi per marca, stato e fascia di prezzo (vuoti se nessuna auto soddisfa i criteri).
+     * @throws InvalidQueryParameterException Se i limiti non sono crescenti o sono troppi.
+     */
+    AutoFacetsDTO facets(AutoSearchCriteriaDTO criteria, List<BigDecimal> prezzoLimits);
+}
@@ -1,49 +1,168 @@
 package com.autoxy.catalogo_auto.Service;
 
+import com.autoxy.catalogo_auto.Config.CacheConfig;
+import com.autoxy.catalogo_auto.DTO.AutoBulkResultDTO;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoFacetsDTO;
+import com.autoxy.catalogo_auto.DTO.AutoPrezzoBucketDTO;
+import com.autoxy.catalogo_auto.DTO.AutoKeysetPageDTO;
 import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRepriceRequestDTO;
 import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchPageDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
 import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
 import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoFacetsRepository.FacetGroup;
 import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import com.autoxy.catalogo_auto.Repository.AutoSpecifications;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementazione concreta del servizio per la gestione delle automobili.
- * Utilizza {@link AutoRepository} per l'accesso ai dati e {@link ModelMapper}
+ * Utilizza {@link AutoRepository} per l'accesso ai dati e {@link AutoMapper}
  * per la conversione tra Entity e DTO.
  */
 @Service
 public class AutoServiceImpl implements AutoService{
+    /**
+     * Numero massimo di limiti delle fasce di prezzo per una richiesta di conteggi.
+     */
+    static final int MAX_PREZZO_LIMITS = 50;
+
+    /**
+     * Timer delle ricerche non servite dalla cache, con i tag {@code source} (index o database) e {@code filters}.
+     */
+    static final String SEARCH_TIMER = "catalogo.search";
+
+    /**
+     * Righe restituite dalle ricerche non servite dalla cache, con gli stessi tag di {@link #SEARCH_TIMER}.
+     */
+    static final String SEARCH_ROWS = "catalogo.search.rows";
+
+    /**
+     * Timer dei conteggi non serviti dalla cache, con gli stessi tag di {@link #SEARCH_TIMER}.
+     */
+    static final String FACETS_TIMER = "catalogo.facets";
+
+    /**
+     * Timer della conversione di entità in DTO per le letture di più auto, con il tag {@code operation}.
+     */
+    static final String MAPPING_TIMER = "catalogo.mapping";
+
     @Autowired
     AutoRepository autoRepository;
 
     @Autowired
-    ModelMapper modelMapper;
+    AutoMapper autoMapper;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    AutoSearchIndex autoSearchIndex;
+
+    @Autowired
+    AutoCache autoCache;
 
     /**
-     * Recupera tutte le auto convertendole in AutoResponseDTO.
-     * @return Lista di tutte le auto disponibili
+     * Cache dei totali stimati; senza cache nel contesto (test slice) la stima viene contata a ogni ricerca.
+     */
+    @Autowired(required = false)
+    CacheManager cacheManager = new NoOpCacheManager();
+
+    /**
+     * Registro delle metriche; senza un registro nel contesto (test slice) le metriche vanno
+     * al registro globale di Micrometer, che senza registri configurati le ignora.
+     */
+    @Autowired(required = false)
+    MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${catalogo.export.chunk-size:1000}")
+    int exportChunkSize;
+
+    @Value("${catalogo.search.keyset.max-size:2000}")
+    int keysetMaxSize;
+
+    @Value("${catalogo.facets.prezzo-buckets:5000,10000,15000,20000,30000,50000}")
+    List<BigDecimal> defaultPrezzoLimits;
+
+    /**
+     * Recupera tutte le auto, lette direttamente come AutoResponseDTO senza caricare le entità.
+     * Con solo alcuni campi la lettura è la ricerca senza filtri né paginazione, che seleziona le sole colonne richieste.
+     * @param fields Campi da leggere
+     * @return Lista di tutte le auto disponibili, ordinate per ID
+     */
+    @Override
+    public List<AutoResponseDTO> findAll(Set<String> fields) {
+        if (fields.size() == AutoResponseDTO.FIELDS.size()) {
+            return autoRepository.findAllResponses();
+        }
+        return autoRepository.searchResponses(new AutoSearchCriteriaDTO(), Pageable.unpaged(Sort.by("id")), fields).getContent();
+    }
+
+    /**
+     * Scorre il catalogo a blocchi di {@code catalogo.export.chunk-size} auto, usando l'ultimo ID
+     * letto come cursore. Ogni blocco è una query indipendente che seleziona direttamente i DTO:
+     * nessuna entità resta nel persistence context e ogni blocco può essere raccolto dal GC.
+     * @return Stream lazy di tutte le auto ordinate per ID
      */
     @Override
-    public List<AutoResponseDTO> findAll() {
-        return autoRepository.findAll()
-                .stream()
-                .map(auto -> modelMapper.map(auto, AutoResponseDTO.class))
-                .collect(Collectors.toList());
+    public Stream<AutoResponseDTO> streamAll() {
+        return Stream.iterate(nextChunk(0L),
+                        chunk -> !chunk.isEmpty(),
+                        chunk -> chunk.size() < exportChunkSize
+                                ? List.of()
+                                : nextChunk(chunk.get(chunk.size() - 1).getId()))
+                .flatMap(List::stream);
+    }
+
+    private List<AutoResponseDTO> nextChunk(Long lastId) {
+        return autoRepository.findResponsesByIdGreaterThan(lastId, Limit.of(exportChunkSize));
     }
 
     /**
      * Recupera un'auto dal catalogo in base all'ID specificato e la restituisce come {@link AutoResponseDTO}.
+     * Il risultato viene letto dalla cache {@link CacheConfig#AUTO_CACHE} se presente; altrimenti viene
+     * messo in cache solo se nessuna scrittura confermata nel frattempo lo ha reso vecchio (vedi {@link AutoCache}).
      *
      * @param id L'ID dell'auto da cercare. Non deve essere nullo.
      * @return {@link AutoResponseDTO} contenente i dettagli dell'auto trovata.
@@ -51,9 +170,9 @@ public class AutoServiceImpl implements AutoService{
      */
     @Override
     public AutoResponseDTO findById(Long id) {
-        Auto auto = autoRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Auto non trovata con ID: " + id));
-        return modelMapper.map(auto, AutoResponseDTO.class);
+        return autoCache.get(id, () -> autoRepository.findById(id)
+                .map(autoMapper::toResponseDTO)
+                .orElseThrow(() -> new NoSuchElementException("Auto non trovata con ID: " + id)));
     }
 
     /**
@@ -64,57 +183,279 @@ public class AutoServiceImpl implements AutoService{
     @Override
     @Transactional
     public AutoResponseDTO save(AutoRequestDTO autoRequestDTO) {
-        Auto auto = modelMapper.map(autoRequestDTO, Auto.class);
+        Auto auto = autoMapper.toEntity(autoRequestDTO);
         Auto savedAuto = autoRepository.save(auto);
-        return modelMapper.map(savedAuto, AutoResponseDTO.class);
+        AutoResponseDTO result = autoMapper.toResponseDTO(savedAuto);
+        eventPublisher.publishEvent(AutoChangedEvent.created(result));
+        return result;
     }
 
     /**
      * Aggiorna un'auto esistente trovandola per ID e applicando i nuovi valori.
+     * Se sono indicate versioni attese, l'auto letta deve averne una; l'UPDATE viene comunque eseguito
+     * con la condizione sulla versione letta (vedi {@link Auto#getVersion()}), quindi un aggiornamento
+     * concorrente confermato dopo la lettura non viene sovrascritto. Il flush immediato restituisce
+     * la nuova versione e fa emergere il conflitto qui, invece che al commit.
+     * Dopo il commit il valore aggiornato sostituisce quello in cache, se più recente.
      * @param id Identificativo auto da aggiornare
      * @param autoRequestDTO DTO con i nuovi dati
+     * @param expectedVersions Versioni attese, null per aggiornare qualunque versione
      * @return AutoResponseDTO aggiornata
      * @throws NoSuchElementException se l'auto non esiste
+     * @throws OptimisticLockingFailureException se la versione non è tra quelle attese o l'auto è stata modificata nel frattempo
      */
     @Override
     @Transactional
-    public AutoResponseDTO update(Long id, AutoRequestDTO autoRequestDTO) {
+    public AutoResponseDTO update(Long id, AutoRequestDTO autoRequestDTO, Collection<Long> expectedVersions) {
+        long ticket = autoCache.ticket();
         Auto auto = autoRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Auto non trovata con ID: " + id));
-        modelMapper.map(autoRequestDTO, auto);
-        Auto updatedAuto = autoRepository.save(auto);
-        return modelMapper.map(updatedAuto, AutoResponseDTO.class);
+        if (expectedVersions != null && !expectedVersions.contains(auto.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                    "L'auto con ID " + id + " è stata modificata: versione attuale " + auto.getVersion());
+        }
+        autoMapper.updateEntity(autoRequestDTO, auto);
+        Auto updatedAuto = autoRepository.saveAndFlush(auto);
+        AutoResponseDTO result = autoMapper.toResponseDTO(updatedAuto);
+        autoCache.put(ticket, result);
+        eventPublisher.publishEvent(AutoChangedEvent.updated(result));
+        return result;
     }
 
     /**
-     * Elimina un'auto per ID.
+     * Imposta lo stato delle auto indicate con un'unica istruzione UPDATE, senza caricare le entità.
+     * Dopo il commit le auto escono dalla cache per ID e l'evento di modifica invalida le ricerche.
+     * @param request ID delle auto e nuovo stato
+     * @return Numero di auto modificate
+     */
+    @Override
+    @Transactional
+    public AutoBulkResultDTO updateStato(AutoBulkStatoRequestDTO request) {
+        List<Long> ids = request.getIds().stream().distinct().toList();
+        int updated = autoRepository.updateStatoByIdIn(ids, StatoAuto.valueOf(request.getStato()));
+        if (updated > 0) {
+            autoCache.invalidate(ids);
+            eventPublisher.publishEvent(AutoChangedEvent.updated(ids));
+        }
+        return new AutoBulkResultDTO(updated);
+    }
+
+    /**
+     * Varia il prezzo di tutte le auto della marca della percentuale indicata
+     * con un'unica istruzione UPDATE. Gli ID delle auto vengono letti prima, nella stessa transazione,
+     * bloccandone le righe: l'UPDATE modifica esattamente quelle auto, che sono anche quelle dell'evento di modifica.
+     * Un'auto della marca inserita nel frattempo non viene variata. Dopo il commit le auto escono dalla cache per ID.
+     * @param request Marca (case-insensitive) e percentuale di variazione
+     * @return Numero di auto modificate
+     */
+    @Override
+    @Transactional
+    public AutoBulkResultDTO reprice(AutoRepriceRequestDTO request) {
+        String marca = request.getMarca().toLowerCase();
+        List<Long> ids = autoRepository.findIdsByMarcaForUpdate(marca);
+        if (ids.isEmpty()) {
+            return new AutoBulkResultDTO(0);
+        }
+        int updated = autoRepository.updatePrezzoByIdIn(ids, request.getPercentuale());
+        if (updated != ids.size()) {
+            throw new IllegalStateException("Variate " + updated + " auto delle " + ids.size() + " bloccate per la marca " + marca);
+        }
+        autoCache.invalidate(ids);
+        eventPublisher.publishEvent(AutoChangedEvent.updated(ids));
+        return new AutoBulkResultDTO(updated);
+    }
+
+    /**
+     * Elimina un'auto per ID e la rimuove dalla cache dopo il commit.
+     * L'evento di modifica viene pubblicato solo se l'auto è stata effettivamente eliminata:
+     * un ID inesistente non produce errori né modifiche nel feed.
      * @param id Identificativo auto da eliminare
      */
     @Override
     @Transactional
     public void deleteById(Long id) {
-        autoRepository.deleteById(id);
+        if (autoRepository.deleteAutoById(id) == 0) {
+            return;
+        }
+        autoCache.invalidate(List.of(id));
+        eventPublisher.publishEvent(AutoChangedEvent.deleted(id));
     }
 
     /**
      * Ricerca auto con filtri opzionali e restituisce i risultati paginati.
+     * Le pagine vengono messe in cache con chiave normalizzata da {@link AutoSearchKeyGenerator},
+     * che include la generazione del catalogo: ogni scrittura invalida le ricerche precedenti.
+     * Le pagine non in cache vengono calcolate da {@link AutoSearchIndex}, che conta i risultati in memoria
+     * e restituisce sempre il totale esatto. Il database viene interrogato solo se l'indice non è disponibile
+     * o non gestisce l'ordinamento richiesto, con lo stesso risultato e selezionando direttamente i DTO
+     * (vedi {@link AutoRepository#searchResponses}). Sul database il totale dipende da {@code conteggio}:
+     * <ul>
+     *   <li>{@link ConteggioTotale#ESATTO}: query di conteggio a ogni ricerca;</li>
+     *   <li>{@link ConteggioTotale#STIMATO}: conteggio letto da {@link CacheConfig#SEARCH_COUNT_CACHE}, calcolato
+     *       una volta per combinazione di filtri e non invalidato dalle scritture;</li>
+     *   <li>{@link ConteggioTotale#NESSUNO}: nessun conteggio, si legge una riga in più per sapere se esiste
+     *       una pagina successiva.</li>
+     * </ul>
+     * Negli ultimi due casi la pagina è un {@link AutoSearchPageDTO}, anche quando viene dall'indice (con il totale
+     * esatto): sul database il totale è esatto se la pagina è l'ultima, altrimenti è segnato come approssimato
+     * ed è almeno quello necessario alla pagina successiva.
+     * Durata e righe restituite sono misurate da {@value #SEARCH_TIMER} e {@value #SEARCH_ROWS}.
      *
-     * @param marca Marca dell'auto (case-insensitive). Se null, ignora il filtro.
-     * @param prezzoMin Prezzo minimo. Se null, ignora il filtro.
-     * @param prezzoMax Prezzo massimo. Se null, ignora il filtro.
-     * @param stato Stato dell'auto. Se null, ignora il filtro.
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
      * @param pageable Paginazione e ordinamento dei risultati.
+     * @param conteggio Modalità di calcolo del totale.
+     * @param fields Campi da leggere: sul database la SELECT contiene solo le loro colonne, dall'indice
+     *               le auto vengono copiate con i soli campi richiesti.
      * @return Pagina di risultati contenente DTO delle auto che soddisfano i criteri.
      * @throws NoSuchElementException Se nessuna auto viene trovata.
      */
     @Override
-    public Page<AutoResponseDTO> search(String marca, BigDecimal prezzoMin, BigDecimal prezzoMax, StatoAuto stato, Pageable pageable) {
-        Page<Auto> autoPage = autoRepository.search(marca != null ? marca.toLowerCase() : null, stato, prezzoMin, prezzoMax, pageable);
+    @Cacheable(cacheNames = CacheConfig.SEARCH_CACHE, keyGenerator = AutoSearchKeyGenerator.BEAN_NAME)
+    public Page<AutoResponseDTO> search(AutoSearchCriteriaDTO criteria, Pageable pageable, ConteggioTotale conteggio,
+                                        Set<String> fields) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<Page<AutoResponseDTO>> indexed = autoSearchIndex.search(criteria, pageable)
+                .map(page -> fields.size() == AutoResponseDTO.FIELDS.size() ? page : page.map(auto -> auto.select(fields)))
+                .map(page -> conteggio == ConteggioTotale.ESATTO ? page
+                        : new AutoSearchPageDTO(page.getContent(), pageable, page.getTotalElements(), false));
+        Page<AutoResponseDTO> autoPage = indexed.orElseGet(() -> conteggio == ConteggioTotale.ESATTO || pageable.isUnpaged()
+                ? autoRepository.searchResponses(criteria, pageable, fields)
+                : searchWithoutCount(criteria, pageable, conteggio, fields));
+        String source = indexed.isPresent() ? "index" : "database";
+        String filters = AutoSpecifications.filterNames(criteria);
+        sample.stop(meterRegistry.timer(SEARCH_TIMER, "source", source, "filters", filters));
+        meterRegistry.summary(SEARCH_ROWS, "source", source, "filters", filters).record(autoPage.getNumberOfElements());
 
         if (autoPage.isEmpty()) {
             throw new NoSuchElementException("Nessuna auto trovata con i criteri di ricerca specificati.");
         }
 
-        return autoPage.map(auto -> modelMapper.map(auto, AutoResponseDTO.class));
+        return autoPage;
+    }
+
+    /**
+     * Legge la pagina senza query di conteggio. Se esiste una pagina successiva il totale è la stima in cache
+     * (solo con {@link ConteggioTotale#STIMATO}), portata almeno alle righe viste più una.
+     */
+    private AutoSearchPageDTO searchWithoutCount(AutoSearchCriteriaDTO criteria, Pageable pageable, ConteggioTotale conteggio,
+                                                 Set<String> fields) {
+        Slice<AutoResponseDTO> slice = autoRepository.sliceResponses(criteria, pageable, fields);
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext()) {
+            return new AutoSearchPageDTO(slice.getContent(), pageable, seen, false);
+        }
+        long total = seen + 1;
+        if (conteggio == ConteggioTotale.STIMATO) {
+            Long estimate = cacheManager.getCache(CacheConfig.SEARCH_COUNT_CACHE)
+                    .get(AutoSearchKeyGenerator.countKey(criteria), () -> autoRepository.countResponses(criteria));
+            total = Math.max(total, estimate);
+        }
+        return new AutoSearchPageDTO(slice.getContent(), pageable, total, true);
+    }
+
+    /**
+     * Ricerca auto con filtri opzionali e paginazione keyset.
+     * Usa lo scrolling keyset di Spring Data: viene letta una riga in più della dimensione richiesta
+     * per sapere se esiste una pagina successiva, senza eseguire la query di conteggio.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param sort Campo di ordinamento. Ignorato se è presente il cursore.
+     * @param direction Direzione di ordinamento. Ignorata se è presente il cursore.
+     * @param size Numero massimo di auto per pagina (limitato a {@code catalogo.search.keyset.max-size}).
+     * @param cursor Cursore restituito dalla pagina precedente. Se null, parte dalla prima pagina.
+     * @return Pagina di risultati con il cursore per la pagina successiva.
+     * @throws NoSuchElementException Se nessuna auto viene trovata.
+     * @throws InvalidQueryParameterException Se il campo di ordinamento, la dimensione o il cursore non sono validi.
+     */
+    @Override
+    public AutoKeysetPageDTO searchKeyset(AutoSearchCriteriaDTO criteria, String sort, Sort.Direction direction, int size, String cursor) {
+        if (size < 1) {
+            throw new InvalidQueryParameterException("La dimensione della pagina deve essere maggiore di 0");
+        }
+        KeysetCursor decoded = cursor != null ? KeysetCursor.decode(cursor) : null;
+        String sortField = decoded != null ? decoded.sort() : sort;
+        Sort.Direction sortDirection = decoded != null ? decoded.direction() : direction;
+        ScrollPosition position = decoded != null ? decoded.toScrollPosition() : ScrollPosition.keyset();
+        KeysetCursor.requireSortable(sortField);
+
+        int limit = Math.min(size, keysetMaxSize);
+        Window<Auto> window = autoRepository.findBy(
+                AutoSpecifications.search(criteria),
+                query -> query.sortBy(Sort.by(sortDirection, sortField)).limit(limit).scroll(position));
+
+        if (window.isEmpty()) {
+            throw new NoSuchElementException("Nessuna auto trovata con i criteri di ricerca specificati.");
+        }
+
+        String nextCursor = window.hasNext()
+                ? KeysetCursor.of(sortField, sortDirection, (KeysetScrollPosition) window.positionAt(window.size() - 1)).encode()
+                : null;
+        List<AutoResponseDTO> content = meterRegistry.timer(MAPPING_TIMER, "operation", "searchKeyset")
+                .record(() -> window.stream()
+                        .map(autoMapper::toResponseDTO)
+                        .collect(Collectors.toList()));
+        return new AutoKeysetPageDTO(content, content.size(), window.hasNext(), nextCursor);
+    }
+
+    /**
+     * Conta le auto che soddisfano i criteri per marca, stato e fascia di prezzo in un solo passaggio:
+     * sull'indice in memoria o, se non disponibile, con un'unica query GROUP BY su marca e stato
+     * (vedi {@link com.autoxy.catalogo_auto.Repository.AutoFacetsRepository}). Le marche che differiscono
+     * solo per maiuscole e minuscole vengono sommate sotto la prima in ordine alfabetico.
+     * I risultati sono in cache fino alla scrittura successiva, con la stessa chiave delle ricerche.
+     *
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati.
+     * @param prezzoLimits Limiti delle fasce di prezzo in ordine crescente; se null o vuoto si usano
+     *                     quelli di {@code catalogo.facets.prezzo-buckets}.
+     * @return Totale e conteggi per marca, stato e fascia di prezzo.
+     * @throws InvalidQueryParameterException Se i limiti non sono crescenti o sono più di {@value #MAX_PREZZO_LIMITS}.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.FACETS_CACHE, keyGenerator = AutoSearchKeyGenerator.BEAN_NAME)
+    public AutoFacetsDTO facets(AutoSearchCriteriaDTO criteria, List<BigDecimal> prezzoLimits) {
+        List<BigDecimal> limits = prezzoLimits == null || prezzoLimits.isEmpty() ? defaultPrezzoLimits : prezzoLimits;
+        if (limits.size() > MAX_PREZZO_LIMITS) {
+            throw new InvalidQueryParameterException("Al massimo " + MAX_PREZZO_LIMITS + " limiti per le fasce di prezzo");
+        }
+        for (int i = 1; i < limits.size(); i++) {
+            if (limits.get(i).compareTo(limits.get(i - 1)) <= 0) {
+                throw new InvalidQueryParameterException("I limiti delle fasce di prezzo devono essere crescenti");
+            }
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<List<FacetGroup>> indexed = autoSearchIndex.facets(criteria, limits);
+        List<FacetGroup> groups = indexed.orElseGet(() -> autoRepository.facets(criteria, limits));
+        sample.stop(meterRegistry.timer(FACETS_TIMER, "source", indexed.isPresent() ? "index" : "database",
+                "filters", AutoSpecifications.filterNames(criteria)));
+
+        long total = 0;
+        Map<String, String> marcaLabels = new HashMap<>();
+        Map<String, Long> marcaCounts = new HashMap<>();
+        Map<StatoAuto, Long> statoCounts = new EnumMap<>(StatoAuto.class);
+        long[] prezzoCounts = new long[limits.size() + 1];
+        for (FacetGroup group : groups) {
+            total += group.count();
+            String marca = group.marca().toLowerCase();
+            marcaLabels.merge(marca, group.marca(), (first, second) -> first.compareTo(second) <= 0 ? first : second);
+            marcaCounts.merge(marca, group.count(), Long::sum);
+            statoCounts.merge(group.stato(), group.count(), Long::sum);
+            for (int bucket = 0; bucket < prezzoCounts.length; bucket++) {
+                prezzoCounts[bucket] += group.prezzoBuckets()[bucket];
+            }
+        }
+
+        Map<String, Long> marca = new TreeMap<>();
+        marcaCounts.forEach((normalized, count) -> marca.put(marcaLabels.get(normalized), count));
+        Map<String, Long> stato = new LinkedHashMap<>();
+        statoCounts.forEach((value, count) -> stato.put(value.name(), count));
+        List<AutoPrezzoBucketDTO> prezzo = new ArrayList<>(prezzoCounts.length);
+        for (int bucket = 0; bucket < prezzoCounts.length; bucket++) {
+            prezzo.add(new AutoPrezzoBucketDTO(
+                    bucket > 0 ? limits.get(bucket - 1) : null,
+                    bucket < limits.size() ? limits.get(bucket) : null,
+                    prezzoCounts[bucket]));
+        }
+        return new AutoFacetsDTO(total, marca, stato, prezzo);
     }
 }
@@ -0,0 +1,68 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contatore di generazione dell'intero catalogo.
+ * <p>
+ * Viene incrementato dopo il commit di ogni modifica, quindi chi legge una generazione
+ * vede tutte le modifiche confermate fino a quel momento. Le cache dei risultati includono
+ * la generazione nella chiave: una scrittura le invalida in O(1), senza scorrere le voci.
+ * La stessa generazione è la base di ETag e Last-Modified delle letture del catalogo (vedi {@link #eTag()}).
+ * </p>
+ */
+@Component
+public class CatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong lastModified = new AtomicLong(startedAt);
+
+    /**
+     * @return Generazione corrente del catalogo
+     */
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * ETag delle letture del catalogo: la generazione corrente, preceduta dall'istante di avvio
+     * perché dopo un riavvio la generazione riparte da zero.
+     *
+     * @return ETag senza virgolette
+     */
+    public String eTag() {
+        return Long.toString(startedAt, 36) + "-" + current();
+    }
+
+    /**
+     * Istante dell'ultima modifica confermata (o dell'avvio). Ogni modifica lo porta avanti di almeno
+     * un secondo, la precisione di {@code If-Modified-Since}: due modifiche nello stesso secondo
+     * hanno comunque date diverse.
+     *
+     * @return Millisecondi dall'epoch
+     */
+    public long lastModified() {
+        return lastModified.get();
+    }
+
+    /**
+     * Incrementa la generazione dopo il commit di una modifica del catalogo.
+     * Il listener viene eseguito per ultimo, dopo quelli che aggiornano i dati letti dalle ricerche
+     * (vedi {@link AutoSearchIndex#onAutoChanged}).
+     *
+     * @param event Modifica confermata
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutoChanged(AutoChangedEvent event) {
+        lastModified.updateAndGet(previous -> Math.max(System.currentTimeMillis(), previous + 1000));
+        generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,110 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cursore opaco per la paginazione keyset della ricerca auto.
+ * Contiene il campo di ordinamento, la direzione e la coppia (valore di ordinamento, id)
+ * dell'ultima auto restituita, codificati in Base64 URL-safe.
+ *
+ * @param sort Campo di ordinamento
+ * @param direction Direzione di ordinamento
+ * @param sortValue Valore del campo di ordinamento dell'ultima auto letta (null se il campo è l'id)
+ * @param id ID dell'ultima auto letta
+ */
+record KeysetCursor(String sort, Sort.Direction direction, Object sortValue, Long id) {
+
+    /**
+     * Campi dell'entità Auto ammessi come chiave di ordinamento.
+     */
+    static final Set<String> SORTABLE_FIELDS = Set.of("id", "marca", "modello", "annoProduzione", "prezzo");
+
+    private static final String SEPARATOR = ";";
+
+    /**
+     * Verifica che il campo di ordinamento sia ammesso.
+     *
+     * @param sort Campo di ordinamento richiesto
+     * @throws InvalidQueryParameterException se il campo non è ordinabile
+     */
+    static void requireSortable(String sort) {
+        if (!SORTABLE_FIELDS.contains(sort)) {
+            throw new InvalidQueryParameterException("Campo di ordinamento non valido: " + sort);
+        }
+    }
+
+    /**
+     * Costruisce il cursore a partire dalla posizione keyset restituita da Spring Data.
+     *
+     * @param sort Campo di ordinamento
+     * @param direction Direzione di ordinamento
+     * @param position Posizione dell'ultima auto della pagina
+     * @return Cursore corrispondente
+     */
+    static KeysetCursor of(String sort, Sort.Direction direction, KeysetScrollPosition position) {
+        Map<String, Object> keys = position.getKeys();
+        return new KeysetCursor(sort, direction, "id".equals(sort) ? null : keys.get(sort), (Long) keys.get("id"));
+    }
+
+    /**
+     * Decodifica un cursore ricevuto dal client.
+     *
+     * @param token Cursore opaco
+     * @return Cursore decodificato
+     * @throws InvalidQueryParameterException se il cursore non è valido
+     */
+    static KeysetCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 4);
+            String sort = parts[0];
+            requireSortable(sort);
+            Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+            Long id = Long.valueOf(parts[2]);
+            Object sortValue = switch (sort) {
+                case "marca", "modello" -> parts[3];
+                case "annoProduzione" -> Integer.valueOf(parts[3]);
+                case "prezzo" -> new BigDecimal(parts[3]);
+                default -> null;
+            };
+            return new KeysetCursor(sort, direction, sortValue, id);
+        } catch (RuntimeException e) {
+            throw new InvalidQueryParameterException("Cursore non valido", e);
+        }
+    }
+
+    /**
+     * Codifica il cursore in un token opaco da restituire al client.
+     *
+     * @return Token Base64 URL-safe
+     */
+    String encode() {
+        String raw = sort + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR
+                + (sortValue != null ? sortValue : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Converte il cursore nella posizione keyset da cui riprendere la lettura.
+     *
+     * @return Posizione keyset successiva all'ultima auto letta
+     */
+    ScrollPosition toScrollPosition() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (sortValue != null) {
+            keys.put(sort, sortValue);
+        }
+        keys.put("id", id);
+        return ScrollPosition.forward(keys);
+    }
+}
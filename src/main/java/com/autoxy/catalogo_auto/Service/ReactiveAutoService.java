@@ -0,0 +1,39 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Service reattivo di sola lettura per il catalogo auto.
+ * Espone le stesse operazioni di {@link AutoService}, con le stesse regole di ricerca,
+ * come {@link Mono} e {@link Flux}: i risultati vengono letti dal database solo quando il client li richiede.
+ */
+public interface ReactiveAutoService {
+    /**
+     * Cerca un'auto per ID
+     * @param id Identificativo dell'auto
+     * @return Mono con l'auto, oppure errore {@link NoSuchElementException} se non esiste
+     */
+    Mono<AutoResponseDTO> findById(Long id);
+
+    /**
+     * Scorre l'intero catalogo ordinato per ID
+     * @return Flux di tutte le auto, letto a blocchi secondo la domanda del client
+     */
+    Flux<AutoResponseDTO> findAll();
+
+    /**
+     * Ricerca auto con filtri opzionali, letta a pagine keyset secondo la domanda del client
+     * @param criteria Filtri della ricerca; i campi null non vengono applicati
+     * @param sort Campo di ordinamento (id, marca, modello, annoProduzione, prezzo)
+     * @param direction Direzione di ordinamento
+     * @param pageSize Auto lette dal database per ogni pagina
+     * @return Flux delle auto trovate, oppure errore {@link NoSuchElementException} se nessuna auto corrisponde
+     */
+    Flux<AutoResponseDTO> search(AutoSearchCriteriaDTO criteria, String sort, Sort.Direction direction, int pageSize);
+}
@@ -0,0 +1,94 @@
+package com.autoxy.catalogo_auto.Service;
+
+import com.autoxy.catalogo_auto.DTO.AutoKeysetPageDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementazione reattiva basata su {@link AutoService}.
+ * <p>
+ * JDBC è bloccante: ogni accesso al database viene eseguito sullo scheduler {@link Schedulers#boundedElastic()},
+ * mai sul thread che scrive la risposta. Il risultato di una lettura singola viene poi consegnato sullo scheduler
+ * {@link Schedulers#parallel()}: alla fine del task il worker elastico può essere interrotto, e un'interruzione
+ * durante la scrittura della risposta (tipicamente quella di errore) chiuderebbe la connessione.
+ * La ricerca avanza di una pagina keyset alla volta, secondo la domanda del client: un client lento
+ * non occupa né thread né connessioni tra una pagina e l'altra.
+ * </p>
+ */
+@Service
+public class ReactiveAutoServiceImpl implements ReactiveAutoService {
+
+    @Autowired
+    AutoService autoService;
+
+    /**
+     * Legge l'auto con {@link AutoService#findById}, quindi anche dalla cache per ID.
+     * @param id Identificativo dell'auto
+     * @return Mono con l'auto trovata
+     */
+    @Override
+    public Mono<AutoResponseDTO> findById(Long id) {
+        return Mono.fromCallable(() -> autoService.findById(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .publishOn(Schedulers.parallel());
+    }
+
+    /**
+     * Adatta lo stream a blocchi di {@link AutoService#streamAll}: ogni blocco viene letto
+     * quando la domanda del client raggiunge la fine del blocco precedente.
+     * @return Flux di tutte le auto ordinate per ID
+     */
+    @Override
+    public Flux<AutoResponseDTO> findAll() {
+        return Flux.fromStream(autoService::streamAll)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Legge le pagine di {@link AutoService#searchKeyset} una dopo l'altra, seguendo il cursore della pagina
+     * precedente. Viene letta al massimo una pagina oltre quella che il client sta consumando.
+     * @param criteria Filtri della ricerca
+     * @param sort Campo di ordinamento
+     * @param direction Direzione di ordinamento
+     * @param pageSize Auto lette dal database per ogni pagina
+     * @return Flux delle auto trovate
+     */
+    @Override
+    public Flux<AutoResponseDTO> search(AutoSearchCriteriaDTO criteria, String sort, Sort.Direction direction, int pageSize) {
+        return Flux.defer(() -> {
+            AtomicReference<AutoKeysetPageDTO> lastPage = new AtomicReference<>();
+            return Mono.fromCallable(() -> nextPage(criteria, sort, direction, pageSize, lastPage.get()))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .publishOn(Schedulers.parallel())
+                    .doOnNext(lastPage::set)
+                    .repeat(() -> lastPage.get().isHasNext())
+                    .concatMapIterable(AutoKeysetPageDTO::getContent, 1);
+        });
+    }
+
+    /**
+     * Legge la prima pagina o quella successiva a {@code previous}. Se le auto rimanenti sono state
+     * eliminate dopo la lettura della pagina precedente, la ricerca termina senza errore.
+     */
+    private AutoKeysetPageDTO nextPage(AutoSearchCriteriaDTO criteria, String sort, Sort.Direction direction,
+                                       int pageSize, AutoKeysetPageDTO previous) {
+        if (previous == null) {
+            return autoService.searchKeyset(criteria, sort, direction, pageSize, null);
+        }
+        try {
+            return autoService.searchKeyset(criteria, sort, direction, pageSize, previous.getNextCursor());
+        } catch (NoSuchElementException e) {
+            return new AutoKeysetPageDTO(List.of(), 0, false, null);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark JMH del costo di mapping per singola entità:
+ * {@link AutoMapper} a confronto con il {@link ModelMapper} usato in precedenza.
+ *
+ * <p>Per misurare anche le allocazioni eseguire con il profiler GC ({@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private AutoMapper autoMapper;
+    private Auto auto;
+    private AutoRequestDTO autoRequestDTO;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        autoMapper = new AutoMapper();
+        auto = new Auto(1L, "Fiat", "Punto", 2010, new BigDecimal("5000.00"), StatoAuto.DISPONIBILE);
+        autoRequestDTO = new AutoRequestDTO("Fiat", "Punto", 2010, new BigDecimal("5000.00"), "DISPONIBILE");
+    }
+
+    @Benchmark
+    public AutoResponseDTO modelMapperToResponseDTO() {
+        return modelMapper.map(auto, AutoResponseDTO.class);
+    }
+
+    @Benchmark
+    public AutoResponseDTO autoMapperToResponseDTO() {
+        return autoMapper.toResponseDTO(auto);
+    }
+
+    @Benchmark
+    public Auto modelMapperToEntity() {
+        return modelMapper.map(autoRequestDTO, Auto.class);
+    }
+
+    @Benchmark
+    public Auto autoMapperToEntity() {
+        return autoMapper.toEntity(autoRequestDTO);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AutoMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
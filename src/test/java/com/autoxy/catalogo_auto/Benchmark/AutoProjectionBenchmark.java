@@ -0,0 +1,90 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Benchmark JMH della lettura di una pagina di ricerca e dell'intero catalogo: entità gestite
+ * convertite con {@link AutoMapper} a confronto con la selezione diretta di {@link AutoResponseDTO}.
+ *
+ * <p>Le query sono le stesse, cambia solo la SELECT: la differenza misura il costo delle entità
+ * (persistence context, snapshot per il dirty checking) e della copia nel DTO. Le varianti {@code Fields}
+ * leggono solo {@code id}, {@code marca} e {@code prezzo}, come con il parametro {@code fields} dell'API.
+ * Per misurare le allocazioni per pagina eseguire con il profiler GC ({@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AutoProjectionBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"20", "1000"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private AutoRepository autoRepository;
+    private AutoMapper autoMapper;
+    private Pageable pageable;
+    private final AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO("fiat", null, null, null, null, null, null);
+    private final Set<String> fields = AutoResponseDTO.fields(List.of("id", "marca", "prezzo"));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(rows);
+        autoRepository = context.getBean(AutoRepository.class);
+        autoMapper = context.getBean(AutoMapper.class);
+        pageable = PageRequest.of(0, pageSize, Sort.by("prezzo"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchEntities() {
+        return autoRepository.search(criteria, pageable).map(autoMapper::toResponseDTO);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchProjection() {
+        return autoRepository.searchResponses(criteria, pageable);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchProjectionFields() {
+        return autoRepository.searchResponses(criteria, pageable, fields);
+    }
+
+    @Benchmark
+    public List<AutoResponseDTO> findAllEntities() {
+        return autoRepository.findAll(Sort.by("id")).stream().map(autoMapper::toResponseDTO).toList();
+    }
+
+    @Benchmark
+    public List<AutoResponseDTO> findAllProjection() {
+        return autoRepository.findAllResponses();
+    }
+
+    @Benchmark
+    public List<AutoResponseDTO> findAllProjectionFields() {
+        return autoRepository.searchResponses(new AutoSearchCriteriaDTO(), Pageable.unpaged(Sort.by("id")), fields).getContent();
+    }
+}
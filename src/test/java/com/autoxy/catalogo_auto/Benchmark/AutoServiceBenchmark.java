@@ -0,0 +1,93 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Service.AutoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Benchmark JMH dei percorsi principali di {@link AutoService} sul database H2 file,
+ * con cataloghi da 10k, 100k e 1M di auto.
+ *
+ * <p>Misura {@code findAll} e {@code search} con diverse combinazioni di filtri
+ * (prima pagina da 20 elementi ordinata per prezzo). La cache dei risultati di ricerca è disattivata
+ * (dimensione massima 0) per misurare ogni volta la ricerca; il parametro {@code searchIndex} confronta
+ * la ricerca sull'indice in memoria ({@link com.autoxy.catalogo_auto.Service.AutoSearchIndex}) con quella sul database,
+ * {@code conteggio} le modalità di calcolo del totale sul database (sull'indice il totale è sempre esatto).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AutoServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean searchIndex;
+
+    @Param({"ESATTO", "STIMATO", "NESSUNO"})
+    public ConteggioTotale conteggio;
+
+    private ConfigurableApplicationContext context;
+    private AutoService autoService;
+    private final Pageable pageable = PageRequest.of(0, 20, Sort.by("prezzo"));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(rows, "catalogo.cache.search.maximum-memory=0B",
+                "catalogo.search.index.enabled=" + searchIndex);
+        autoService = context.getBean(AutoService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AutoResponseDTO> findAll() {
+        return autoService.findAll(AutoResponseDTO.FIELDS);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchNoFilters() {
+        return autoService.search(new AutoSearchCriteriaDTO(), pageable, conteggio, AutoResponseDTO.FIELDS);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchMarca() {
+        return autoService.search(new AutoSearchCriteriaDTO("fiat", null, null, null, null, null, null), pageable, conteggio, AutoResponseDTO.FIELDS);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchStato() {
+        return autoService.search(new AutoSearchCriteriaDTO(null, null, null, null, null, null, StatoAuto.DISPONIBILE), pageable, conteggio, AutoResponseDTO.FIELDS);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchPrezzoRange() {
+        return autoService.search(new AutoSearchCriteriaDTO(null, null, null, null,
+                new BigDecimal("10000"), new BigDecimal("15000"), null), pageable, conteggio, AutoResponseDTO.FIELDS);
+    }
+
+    @Benchmark
+    public Page<AutoResponseDTO> searchAllFilters() {
+        return autoService.search(new AutoSearchCriteriaDTO("fiat", null, null, null,
+                new BigDecimal("10000"), new BigDecimal("15000"), StatoAuto.DISPONIBILE), pageable, conteggio, AutoResponseDTO.FIELDS);
+    }
+}
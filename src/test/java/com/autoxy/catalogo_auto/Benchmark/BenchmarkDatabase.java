@@ -0,0 +1,101 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.autoxy.catalogo_auto.CatalogoAutoApiApplication;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Service.AutoSearchIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Avvia il contesto Spring dei benchmark su un database H2 file dedicato
+ * ({@code target/benchmark-db/catalogo-<righe>}) e lo popola con un catalogo sintetico.
+ * Il database viene riutilizzato tra un'esecuzione e l'altra se contiene già il numero di righe richiesto.
+ * La cache delle istruzioni di H2 è disattivata ({@code QUERY_CACHE_SIZE=0}): altrimenti H2 restituirebbe
+ * il risultato già calcolato di una query identica, senza misurare l'accesso ai dati.
+ */
+final class BenchmarkDatabase {
+
+    static final String[] MARCHE = {
+            "Fiat", "Ford", "Volkswagen", "Renault", "Peugeot", "Toyota", "Opel", "Citroen", "Audi", "BMW",
+            "Mercedes", "Dacia", "Kia", "Hyundai", "Skoda", "Seat", "Nissan", "Lancia", "Alfa Romeo", "Jeep"};
+
+    private static final String[] MODELLI = {"Base", "Comfort", "Sport", "Plus", "Lounge", "Cross", "Van", "City"};
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Avvia l'applicazione senza web server sul database dei benchmark con il numero di righe indicato.
+     *
+     * @param rows Numero di auto del catalogo
+     * @param properties Proprietà aggiuntive nel formato {@code chiave=valore}
+     * @return Contesto Spring avviato
+     */
+    static ConfigurableApplicationContext start(int rows, String... properties) {
+        return start(new SpringApplicationBuilder(CatalogoAutoApiApplication.class).web(WebApplicationType.NONE),
+                rows, properties);
+    }
+
+    /**
+     * Avvia l'applicazione configurata da {@code application} sul database dei benchmark
+     * con il numero di righe indicato.
+     *
+     * @param application Applicazione da avviare (ad esempio con web server o profili aggiuntivi)
+     * @param rows Numero di auto del catalogo
+     * @param properties Proprietà aggiuntive nel formato {@code chiave=valore}
+     * @return Contesto Spring avviato
+     */
+    static ConfigurableApplicationContext start(SpringApplicationBuilder application, int rows, String... properties) {
+        // Passate come argomenti da riga di comando per avere precedenza su application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:./target/benchmark-db/catalogo-" + rows + ";QUERY_CACHE_SIZE=0",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        ConfigurableApplicationContext context = application.run(args.toArray(new String[0]));
+        seed(context.getBean(JdbcTemplate.class), rows);
+        // Le righe inserite via JDBC non passano dal service: l'indice di ricerca va ricostruito
+        context.getBean(AutoSearchIndex.class).rebuild();
+        return context;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auto", Integer.class);
+        if (count != null && count == rows) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM auto");
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{
+                    (long) i + 1,
+                    MARCHE[random.nextInt(MARCHE.length)],
+                    MODELLI[random.nextInt(MODELLI.length)],
+                    1990 + random.nextInt(35),
+                    BigDecimal.valueOf(1_000_00L + random.nextInt(80_000_00), 2),
+                    random.nextInt(4) == 0 ? "VENDUTA" : "DISPONIBILE"});
+            if (batch.size() == BATCH_SIZE || i == rows - 1) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO auto (id, marca, modello, anno_produzione, prezzo, stato) VALUES (?, ?, ?, ?, ?, ?)",
+                        batch);
+                batch.clear();
+            }
+        }
+        // Stesso allineamento di AutoSequenceInitializer, che all'avvio ha trovato la tabella vuota
+        jdbcTemplate.execute("ALTER SEQUENCE " + Auto.ID_SEQUENCE + " RESTART WITH "
+                + ((long) rows + Auto.ID_ALLOCATION_SIZE + 1));
+    }
+}
@@ -0,0 +1,104 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchPageDTO;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmark JMH di codifica e decodifica delle risposte di {@code GET /api/auto/{id}} e {@code GET /api/auto/search}
+ * nei formati negoziabili: JSON, CBOR e Smile.
+ *
+ * <p>La decodifica della pagina legge contenuto e totale in {@link PageBody}, come farebbe un servizio client.
+ * All'avvio di ogni combinazione stampa la dimensione dell'auto e della pagina codificate, anche compresse con gzip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"20", "1000"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private AutoResponseDTO auto;
+    private AutoSearchPageDTO page;
+    private byte[] encodedAuto;
+    private byte[] encodedPage;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("Formato non gestito: " + format);
+        };
+        List<AutoResponseDTO> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new AutoResponseDTO(100_000L + i, BenchmarkDatabase.MARCHE[i % BenchmarkDatabase.MARCHE.length],
+                    "Modello " + i, 2000 + i % 25, BigDecimal.valueOf(1_500_000L + i * 100L, 2), "DISPONIBILE", 2L));
+        }
+        auto = content.getFirst();
+        page = new AutoSearchPageDTO(content, PageRequest.of(0, pageSize), 100_000, false);
+        encodedAuto = objectMapper.writeValueAsBytes(auto);
+        encodedPage = objectMapper.writeValueAsBytes(page);
+        System.out.printf("%n%s: auto %d byte, pagina da %d %d byte (gzip %d byte)%n",
+                format, encodedAuto.length, pageSize, encodedPage.length, gzip(encodedPage).length);
+    }
+
+    @Benchmark
+    public byte[] encodeAuto() throws IOException {
+        return objectMapper.writeValueAsBytes(auto);
+    }
+
+    @Benchmark
+    public AutoResponseDTO decodeAuto() throws IOException {
+        return objectMapper.readValue(encodedAuto, AutoResponseDTO.class);
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageBody decodePage() throws IOException {
+        return objectMapper.readValue(encodedPage, PageBody.class);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(bytes);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Parte della pagina letta da un client: contenuto e totale, gli altri campi vengono ignorati.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PageBody {
+        public List<AutoResponseDTO> content;
+        public long totalElements;
+        public boolean totalApproximate;
+    }
+}
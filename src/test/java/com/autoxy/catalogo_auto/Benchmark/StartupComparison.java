@@ -0,0 +1,143 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Confronto dei tempi di avvio della build {@code mvn -Pfaststart package} nelle sue varianti.
+ *
+ * <p>Per ogni variante avvia l'applicazione estratta in {@code target/faststart} in una JVM separata e misura
+ * il tempo dalla creazione del processo alla prima risposta 200 di {@code GET /api/auto/search}, interrogata
+ * ogni 10 ms. Le varianti sono:
+ * <ul>
+ *   <li>{@code baseline}: avvio attuale ({@code java -jar}, senza AOT, CDS né inizializzazione lazy);</li>
+ *   <li>{@code cds}: solo l'archivio AppCDS ({@code -XX:SharedArchiveFile});</li>
+ *   <li>{@code aot}: solo il codice AOT ({@code -Dspring.aot.enabled=true});</li>
+ *   <li>{@code lazy}: solo il profilo {@code faststart} (inizializzazione lazy);</li>
+ *   <li>{@code faststart}: tutte e tre.</li>
+ * </ul>
+ * Il database è quello dei benchmark con {@code rows} auto, preparato prima delle misure: la ricerca ha quindi
+ * risultati anche mentre l'indice in memoria è ancora in costruzione. Ogni variante viene avviata {@code runs}
+ * volte dopo {@code warmup} avvii scartati (cache del file system); stampa minimo, mediana e massimo.
+ *
+ * <pre>
+ * mvn -Pfaststart package -DskipTests
+ * mvn -Pbenchmark test -Dbenchmark.main=com.autoxy.catalogo_auto.Benchmark.StartupComparison \
+ *     -Dbenchmark.args="rows=10000 runs=5 warmup=1"
+ * </pre>
+ */
+public final class StartupComparison {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private static final Map<String, List<String>> VARIANTS = Map.of(
+            "baseline", List.of(),
+            "cds", List.of("-XX:SharedArchiveFile=application.jsa"),
+            "aot", List.of("-Dspring.aot.enabled=true"),
+            "lazy", List.of("--spring.profiles.active=faststart"),
+            "faststart", List.of("-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true",
+                    "--spring.profiles.active=faststart"));
+
+    private StartupComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+        int rows = Integer.parseInt(options.getOrDefault("rows", "10000"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "1"));
+        Path directory = Path.of(options.getOrDefault("dir", "target/faststart")).toAbsolutePath();
+        Path jar;
+        try (Stream<Path> files = Files.list(directory)) {
+            jar = files.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Nessun jar in " + directory + ": eseguire mvn -Pfaststart package"));
+        }
+
+        // Prepara il database dei benchmark e lo chiude, così le JVM avviate possono aprirlo
+        try (ConfigurableApplicationContext ignored = BenchmarkDatabase.start(rows, "catalogo.search.index.enabled=false")) {
+            System.out.println("Database dei benchmark pronto: " + rows + " auto");
+        }
+        String url = "jdbc:h2:file:" + Path.of("target/benchmark-db/catalogo-" + rows).toAbsolutePath() + ";QUERY_CACHE_SIZE=0";
+
+        List<String> results = new ArrayList<>();
+        for (String variant : options.getOrDefault("variants", "baseline,cds,aot,lazy,faststart").split(",")) {
+            long[] millis = new long[runs];
+            for (int run = -warmup; run < runs; run++) {
+                long elapsed = timeToFirstSearch(directory, jar, VARIANTS.get(variant), url);
+                if (run >= 0) {
+                    millis[run] = elapsed;
+                }
+            }
+            Arrays.sort(millis);
+            results.add(String.format("%-10s prima ricerca: min %5d ms  mediana %5d ms  max %5d ms  (%d avvii)",
+                    variant, millis[0], millis[runs / 2], millis[runs - 1], runs));
+        }
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Avvia l'applicazione e attende la prima ricerca riuscita.
+     *
+     * @return Millisecondi dalla creazione del processo alla prima risposta 200
+     */
+    private static long timeToFirstSearch(Path directory, Path jar, List<String> variant, String url)
+            throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        variant.stream().filter(arg -> arg.startsWith("-X") || arg.startsWith("-D")).forEach(command::add);
+        command.addAll(List.of("-Xshare:auto", "-Xlog:cds=off", "-Xlog:cds+dynamic=off", "-jar", jar.toString(),
+                "--server.port=" + port, "--spring.datasource.url=" + url, "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN"));
+        variant.stream().filter(arg -> arg.startsWith("--")).forEach(command::add);
+
+        HttpRequest search = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/auto/search?marca=Fiat&size=20&sort=prezzo,asc")).build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).directory(directory.toFile())
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.to(new File(directory.toFile(), "startup.log")))
+                .start();
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Avvio fallito (" + command + "), vedi " + directory.resolve("startup.log"));
+                }
+                try {
+                    if (httpClient.send(search, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+                    }
+                } catch (IOException e) {
+                    // Server non ancora in ascolto
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Nessuna ricerca riuscita entro " + TIMEOUT + " (" + command + ")");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+}
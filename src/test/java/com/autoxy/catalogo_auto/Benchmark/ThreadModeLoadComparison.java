@@ -0,0 +1,269 @@
+package com.autoxy.catalogo_auto.Benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+import com.autoxy.catalogo_auto.CatalogoAutoApiApplication;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Confronto di carico tra l'esecuzione delle richieste su thread di piattaforma (default)
+ * e su thread virtuali (profilo {@code virtual-threads}).
+ *
+ * <p>Avvia l'applicazione con Tomcat su una porta casuale, una modalità alla volta, sul database dei benchmark
+ * e genera carico con {@code clients} client concorrenti: l'80% delle richieste legge un'auto per ID tra le prime
+ * 1000 (lette una volta prima del carico e quindi servite dalla cache), il 20% esegue una ricerca con prezzo minimo casuale
+ * (servita dal database, la cache delle ricerche è disattivata). A ogni istruzione JDBC viene aggiunta una latenza
+ * simulata ({@code latency-ms}), come per un database remoto: H2 embedded non attende mai la rete
+ * e non mostrerebbe thread bloccati. Per ogni modalità stampa throughput, errori e latenze p50/p99.
+ *
+ * <p>Il generatore di carico gira nella stessa JVM dell'applicazione e ne condivide le CPU.
+ *
+ * <pre>
+ * mvn -Pbenchmark test -Dbenchmark.main=com.autoxy.catalogo_auto.Benchmark.ThreadModeLoadComparison \
+ *     -Dbenchmark.args="rows=100000 clients=1000 warmup=10 duration=30 latency-ms=5"
+ * </pre>
+ */
+public final class ThreadModeLoadComparison {
+
+    private static final int HOT_IDS = 1000;
+
+    private ThreadModeLoadComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+        int rows = Integer.parseInt(options.getOrDefault("rows", "100000"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        long latencyMs = Long.parseLong(options.getOrDefault("latency-ms", "5"));
+
+        List<String> results = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            SpringApplicationBuilder application = new SpringApplicationBuilder(CatalogoAutoApiApplication.class)
+                    .initializers(context -> context.getBeanFactory()
+                            .addBeanPostProcessor(new SimulatedLatency(latencyMs)));
+            if (mode.equals("virtual")) {
+                application.profiles("virtual-threads");
+            }
+            try (ConfigurableApplicationContext context = BenchmarkDatabase.start(application, rows,
+                    "server.port=0", "catalogo.cache.search.maximum-memory=0B")) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                loadHotIds(port);
+                run(port, clients, warmup);
+                results.add(String.format("%-8s clients=%d latency=%dms %s",
+                        mode, clients, latencyMs, run(port, clients, duration)));
+            }
+        }
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Legge una volta le auto più richieste, così che durante la misura siano servite dalla cache.
+     */
+    private static void loadHotIds(int port) throws IOException, InterruptedException {
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            for (int id = 1; id <= HOT_IDS; id++) {
+                httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auto/" + id)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+            }
+        }
+    }
+
+    /**
+     * Esegue il carico per la durata indicata con un thread virtuale per client.
+     */
+    private static Result run(int port, int clients, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<long[]> findById = new ArrayList<>();
+        List<long[]> search = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        List<Client> started = new ArrayList<>();
+        // Il client HTTP ha un proprio executor: close() dell'executor dei client ne attende la fine
+        // dopo averlo chiuso a nuovi task, che il client HTTP userebbe ancora per le risposte
+        try (HttpClient httpClient = HttpClient.newHttpClient();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(httpClient, "http://localhost:" + port + "/api/auto", deadline, errors);
+                started.add(client);
+                executor.submit(client);
+            }
+        }
+        for (Client client : started) {
+            findById.add(client.findById.toArray());
+            search.add(client.search.toArray());
+        }
+        return new Result(duration, Latencies.of(findById), Latencies.of(search), errors.get());
+    }
+
+    private static final class Client implements Runnable {
+
+        private final HttpClient httpClient;
+        private final String baseUrl;
+        private final long deadline;
+        private final AtomicLong errors;
+        private final LongList findById = new LongList();
+        private final LongList search = new LongList();
+
+        Client(HttpClient httpClient, String baseUrl, long deadline, AtomicLong errors) {
+            this.httpClient = httpClient;
+            this.baseUrl = baseUrl;
+            this.deadline = deadline;
+            this.errors = errors;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                boolean isSearch = random.nextInt(5) == 0;
+                String url = isSearch
+                        ? baseUrl + "/search?marca=Fiat&prezzoMin=" + random.nextInt(1_000, 80_000)
+                                + "&page=0&size=20&sort=prezzo,asc"
+                        : baseUrl + "/" + random.nextInt(1, HOT_IDS + 1);
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                (isSearch ? search : findById).add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private record Result(Duration duration, Latencies findById, Latencies search, long errors) {
+
+        @Override
+        public String toString() {
+            long requests = findById.count() + search.count();
+            return String.format("%d req/s (errori %d) | findById p50 %.1f ms p99 %.1f ms | search p50 %.1f ms p99 %.1f ms",
+                    requests / duration.toSeconds(), errors,
+                    findById.percentile(50), findById.percentile(99),
+                    search.percentile(50), search.percentile(99));
+        }
+    }
+
+    private record Latencies(long[] sorted) {
+
+        static Latencies of(List<long[]> samples) {
+            long[] all = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Latencies(all);
+        }
+
+        long count() {
+            return sorted.length;
+        }
+
+        /**
+         * @return Percentile in millisecondi (NaN senza campioni)
+         */
+        double percentile(int percentile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Aggiunge una latenza fissa prima di ogni esecuzione di istruzioni JDBC, mentre la connessione è occupata.
+     */
+    private record SimulatedLatency(long latencyMs) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || latencyMs == 0) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return (Connection) delayed(Connection.class, super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return (Connection) delayed(Connection.class, super.getConnection(username, password));
+                }
+            };
+        }
+
+        private Object delayed(Class<?> type, Object target) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            Thread.sleep(latencyMs);
+                        }
+                        Object result = invoke(target, method, args);
+                        return result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())
+                                ? delayed(method.getReturnType(), result)
+                                : result;
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.autoxy.catalogo_auto;
+
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.Service.AutoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica che le metriche di endpoint, ricerche, query e cache siano esposte in formato Prometheus.
+ * L'indice in memoria è disattivato, così la ricerca interroga il database ed esegue anche la query di conteggio.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:metrics", "catalogo.search.index.enabled=false"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class CatalogoAutoApiMetricsTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	AutoService autoService;
+
+	@Test
+	void prometheusShouldExposeSearchMetrics() throws Exception {
+		autoService.save(new AutoRequestDTO("Fiat", "Panda", 2020, new BigDecimal("15000"), "DISPONIBILE"));
+		autoService.save(new AutoRequestDTO("Fiat", "Tipo", 2018, new BigDecimal("12000"), "DISPONIBILE"));
+
+		mockMvc.perform(get("/api/auto/search").param("marca", "fiat").param("size", "1").param("sort", "prezzo"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(allOf(
+						containsString("http_server_requests_seconds_bucket{"),
+						containsString("uri=\"/api/auto/search\""),
+						containsString("catalogo_search_seconds_count{filters=\"marca\",source=\"database\"} 1"),
+						containsString("catalogo_search_rows_sum{filters=\"marca\",source=\"database\"} 1"),
+						containsString("catalogo_search_query_seconds_count{filters=\"marca\",query=\"select\"} 1"),
+						containsString("catalogo_search_query_seconds_count{filters=\"marca\",query=\"count\"} 1"),
+						containsString("cache_gets_total{cache=\"autoSearch\""))));
+	}
+}
@@ -0,0 +1,63 @@
+package com.autoxy.catalogo_auto;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica che il profilo virtual-threads esegua richieste web e task asincroni su thread virtuali
+ * e applichi la configurazione del pool di connessioni.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.datasource.url=jdbc:h2:mem:virtual-threads")
+@ActiveProfiles("virtual-threads")
+class CatalogoAutoApiVirtualThreadsTests {
+
+	@Autowired
+	ServletWebServerApplicationContext context;
+
+	@Autowired
+	@Qualifier("applicationTaskExecutor")
+	TaskExecutor applicationTaskExecutor;
+
+	@Autowired
+	DataSource dataSource;
+
+	@Test
+	void tomcatShouldUseVirtualThreads() {
+		TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+		assertInstanceOf(VirtualThreadExecutor.class,
+				webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+	}
+
+	@Test
+	void asyncTasksShouldRunOnVirtualThreads() throws Exception {
+		CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+
+		applicationTaskExecutor.execute(() -> virtual.complete(Thread.currentThread().isVirtual()));
+
+		assertTrue(virtual.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void connectionPoolShouldFailFast() {
+		HikariDataSource hikari = (HikariDataSource) dataSource;
+
+		assertEquals(10, hikari.getMaximumPoolSize());
+		assertEquals(5000, hikari.getConnectionTimeout());
+	}
+}
@@ -0,0 +1,40 @@
+package com.autoxy.catalogo_auto.Config;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asserzioni sul numero di istruzioni SQL eseguite da un blocco di codice, per i test con
+ * {@code catalogo.diagnostics.enabled=true} (vedi {@link QueryDiagnosticsConfig}).
+ * <p>
+ * Il conteggio è quello del thread corrente: con MockMvc comprende tutte le query della richiesta,
+ * esclusi i corpi asincroni (export, long-poll).
+ * </p>
+ */
+public final class QueryCounts {
+
+    private QueryCounts() {
+    }
+
+    /**
+     * Esegue il blocco e verifica che non abbia eseguito più di {@code max} istruzioni SQL.
+     *
+     * @param max Numero massimo di istruzioni
+     * @param action Blocco da eseguire, ad esempio una richiesta MockMvc
+     * @return Istruzioni eseguite dal blocco, per verifiche più precise sui singoli tipi
+     * @throws Throwable Eccezione lanciata dal blocco
+     */
+    public static QueryCount assertAtMost(int max, Executable action) throws Throwable {
+        QueryCountHolder.clear();
+        action.execute();
+        QueryCount count = QueryCountHolder.getGrandTotal();
+        QueryCountHolder.clear();
+        assertTrue(count.getTotal() <= max, () -> "Eseguite " + count.getTotal() + " query SQL, attese al massimo " + max
+                + " (" + count.getSelect() + " select, " + count.getInsert() + " insert, " + count.getUpdate() + " update, "
+                + count.getDelete() + " delete, " + count.getOther() + " altre)");
+        return count;
+    }
+}
@@ -0,0 +1,134 @@
+package com.autoxy.catalogo_auto.Config;
+
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import com.autoxy.catalogo_auto.Service.AutoSearchIndex;
+import com.autoxy.catalogo_auto.Service.AutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link ReplicaDataSourceConfig} con due database H2 in memoria distinti.
+ * La replica riceve i dati del primario solo quando il test chiama {@link #replicate()}: tra una chiamata
+ * e l'altra è una replica in ritardo, e le letture mostrano da quale database provengono.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:primary", "catalogo.datasource.replica.url=jdbc:h2:mem:replica"})
+public class ReplicaDataSourceConfigTest {
+
+    @Autowired
+    private AutoService autoService;
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @Autowired
+    private ReplicaLagGuard replicaLagGuard;
+
+    @Autowired
+    private AutoSearchIndex autoSearchIndex;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        replicaLagGuard.maxLag = Duration.ZERO;
+        replicate();
+        autoSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        autoRepository.deleteAll();
+        replicate();
+        replicaLagGuard.maxLag = Duration.ofSeconds(1);
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldUseReplica() {
+        AutoResponseDTO saved = autoService.save(request("15000"));
+
+        assertTrue(autoService.findAll(AutoResponseDTO.FIELDS).isEmpty());
+        assertEquals(1, new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM auto", Integer.class));
+
+        replicate();
+        assertEquals(saved.getId(), autoService.findAll(AutoResponseDTO.FIELDS).getFirst().getId());
+    }
+
+    @Test
+    void writeTransactions_ShouldUsePrimary() {
+        AutoResponseDTO saved = autoService.save(request("15000"));
+        replicate();
+
+        // La lettura dell'auto da aggiornare avviene nella transazione di scrittura, quindi sul primario
+        autoService.update(saved.getId(), request("14000"), null);
+
+        assertEquals(0, new BigDecimal("14000").compareTo(new JdbcTemplate(primary)
+                .queryForObject("SELECT prezzo FROM auto WHERE id = ?", BigDecimal.class, saved.getId())));
+        assertEquals(0, new BigDecimal("15000").compareTo(autoService.findAll(AutoResponseDTO.FIELDS).getFirst().getPrezzo()));
+    }
+
+    @Test
+    void reads_ShouldUsePrimaryWhileReplicaMayLag() {
+        replicaLagGuard.maxLag = Duration.ofMinutes(1);
+
+        AutoResponseDTO saved = autoService.save(request("15000"));
+
+        assertEquals(saved.getId(), autoService.findAll(AutoResponseDTO.FIELDS).getFirst().getId());
+        replicaLagGuard.maxLag = Duration.ZERO;
+        assertTrue(autoService.findAll(AutoResponseDTO.FIELDS).isEmpty());
+    }
+
+    /**
+     * L'indice di ricerca rilegge dal primario le auto di un aggiornamento massivo: con la replica in ritardo
+     * (e senza la protezione di max-lag) la ricerca restituisce comunque il nuovo stato.
+     */
+    @Test
+    void searchIndex_ShouldReloadBulkUpdatesFromPrimary() {
+        AutoResponseDTO saved = autoService.save(request("15000"));
+        replicate();
+
+        autoService.updateStato(new AutoBulkStatoRequestDTO(List.of(saved.getId()), "VENDUTA"));
+
+        assertEquals("DISPONIBILE", autoService.findAll(AutoResponseDTO.FIELDS).getFirst().getStato());
+        Page<AutoResponseDTO> page = autoService.search(new AutoSearchCriteriaDTO(), PageRequest.of(0, 10),
+                ConteggioTotale.ESATTO, AutoResponseDTO.FIELDS);
+        assertEquals("VENDUTA", page.getContent().getFirst().getStato());
+    }
+
+    /**
+     * Copia schema e dati del primario nella replica, come farebbe la replica del database.
+     */
+    private void replicate() {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(primary).queryForList("SCRIPT", String.class).forEach(replicaJdbc::execute);
+    }
+
+    private static AutoRequestDTO request(String prezzo) {
+        return new AutoRequestDTO("Fiat", "Panda", 2020, new BigDecimal(prezzo), "DISPONIBILE");
+    }
+}
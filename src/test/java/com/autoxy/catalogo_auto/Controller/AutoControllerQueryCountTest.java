@@ -0,0 +1,98 @@
+package com.autoxy.catalogo_auto.Controller;
+
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import com.autoxy.catalogo_auto.Service.AutoService;
+import net.ttddyy.dsproxy.QueryCount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static com.autoxy.catalogo_auto.Config.QueryCounts.assertAtMost;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica il numero di query SQL eseguite dagli endpoint di {@link AutoController} con la modalità diagnostica.
+ * L'indice in memoria è disattivato, così la ricerca interroga il database.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:query-count", "catalogo.search.index.enabled=false",
+        "catalogo.diagnostics.enabled=true", "catalogo.diagnostics.max-queries=2"})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+public class AutoControllerQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AutoService autoService;
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    private AutoResponseDTO panda;
+
+    @BeforeEach
+    void setUp() {
+        panda = autoService.save(new AutoRequestDTO("Fiat", "Panda", 2020, new BigDecimal("15000"), "DISPONIBILE"));
+        autoService.save(new AutoRequestDTO("Fiat", "Tipo", 2018, new BigDecimal("12000"), "DISPONIBILE"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        autoRepository.deleteAll();
+    }
+
+    @Test
+    void readEndpoints_ShouldIssueBoundedQueries() throws Throwable {
+        assertAtMost(1, () -> mockMvc.perform(get("/api/auto")).andExpect(status().isOk()));
+        assertAtMost(1, () -> mockMvc.perform(get("/api/auto/{id}", panda.getId())).andExpect(status().isOk()));
+        QueryCount cached = assertAtMost(0, () -> mockMvc.perform(get("/api/auto/{id}", panda.getId())).andExpect(status().isOk()));
+        assertEquals(0, cached.getTotal());
+
+        // Pagina piena: una select per la pagina e una per il totale
+        QueryCount search = assertAtMost(2, () -> mockMvc.perform(get("/api/auto/search")
+                .param("marca", "fiat").param("size", "1").param("sort", "prezzo")).andExpect(status().isOk()));
+        assertEquals(2, search.getSelect());
+    }
+
+    /**
+     * Ogni scrittura esegue un numero fisso di istruzioni, indipendente dal numero di auto nel catalogo:
+     * lettura dell'auto (o delle auto modificate; l'eliminazione non la legge), blocco della testa dell'outbox,
+     * modifica dell'auto, riga dell'outbox e aggiornamento della testa.
+     */
+    @Test
+    void writeEndpoints_ShouldIssueBoundedQueries() throws Throwable {
+        assertAtMost(5, () -> mockMvc.perform(put("/api/auto/{id}", panda.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"marca\":\"Fiat\",\"modello\":\"Panda\",\"annoProduzione\":2020,\"prezzo\":14000,\"stato\":\"DISPONIBILE\"}"))
+                .andExpect(status().isOk()));
+        assertAtMost(5, () -> mockMvc.perform(patch("/api/auto/stato")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + panda.getId() + "],\"stato\":\"VENDUTA\"}"))
+                .andExpect(status().isOk()));
+        assertAtMost(4, () -> mockMvc.perform(delete("/api/auto/{id}", panda.getId())).andExpect(status().is2xxSuccessful()));
+    }
+
+    @Test
+    void requestsOverThreshold_ShouldBeLogged(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/api/auto/{id}", panda.getId())).andExpect(status().isOk());
+        assertFalse(output.getOut().contains("query SQL (soglia 2)"));
+
+        mockMvc.perform(delete("/api/auto/{id}", panda.getId())).andExpect(status().is2xxSuccessful());
+        assertTrue(output.getOut().contains("DELETE /api/auto/" + panda.getId() + ": 4 query SQL (soglia 2)"));
+    }
+}
@@ -1,28 +1,68 @@
 package com.autoxy.catalogo_auto.Controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import com.autoxy.catalogo_auto.Config.BinaryFormatConfig;
+import com.autoxy.catalogo_auto.DTO.AutoBulkResultDTO;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoChangeDTO;
+import com.autoxy.catalogo_auto.DTO.AutoChangesDTO;
+import com.autoxy.catalogo_auto.DTO.AutoFacetsDTO;
+import com.autoxy.catalogo_auto.DTO.AutoImportBatchReportDTO;
+import com.autoxy.catalogo_auto.DTO.AutoImportReportDTO;
+import com.autoxy.catalogo_auto.DTO.AutoPrezzoBucketDTO;
 import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
 import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchPageDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Exception.GlobalExceptionHandler;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Service.AutoChangeService;
+import com.autoxy.catalogo_auto.Service.AutoImportService;
 import com.autoxy.catalogo_auto.Service.AutoService;
+import com.autoxy.catalogo_auto.Service.CatalogVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 @ExtendWith(MockitoExtension.class)
 public class AutoControllerTest {
@@ -32,6 +72,18 @@ public class AutoControllerTest {
     @Mock
     private AutoService autoService;
 
+    @Mock
+    private AutoImportService autoImportService;
+
+    @Mock
+    private AutoChangeService autoChangeService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     @InjectMocks
     private AutoController autoController;
 
@@ -41,13 +93,13 @@ public class AutoControllerTest {
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(autoController).build();
-        autoResponseDTO = new AutoResponseDTO(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE");
+        autoResponseDTO = new AutoResponseDTO(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE", 3L);
         autoRequestDTO = new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE");
     }
 
     @Test
     void getAllAuto_ShouldReturnListOfAutoResponseDTO() throws Exception {
-        when(autoService.findAll()).thenReturn(Collections.singletonList(autoResponseDTO));
+        when(autoService.findAll(AutoResponseDTO.FIELDS)).thenReturn(Collections.singletonList(autoResponseDTO));
 
         mockMvc.perform(get("/api/auto"))
                 .andExpect(status().isOk())
@@ -59,18 +111,122 @@ public class AutoControllerTest {
                 .andExpect(jsonPath("$[0].stato").value("DISPONIBILE"));
     }
 
+    /**
+     * Una lettura del catalogo con l'ETag della generazione corrente riceve 304 senza leggere le auto;
+     * dopo una modifica confermata l'ETag cambia e la lista viene letta di nuovo.
+     */
+    @Test
+    void getAllAuto_ShouldReturnNotModifiedWithoutReadingCatalog() throws Exception {
+        when(autoService.findAll(AutoResponseDTO.FIELDS)).thenReturn(Collections.singletonList(autoResponseDTO));
+
+        String eTag = mockMvc.perform(get("/api/auto"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/auto").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(autoService, times(1)).findAll(AutoResponseDTO.FIELDS);
+
+        catalogVersion.onAutoChanged(AutoChangedEvent.deleted(1L));
+        mockMvc.perform(get("/api/auto").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+        verify(autoService, times(2)).findAll(AutoResponseDTO.FIELDS);
+    }
+
+    /**
+     * Con {@code fields} il servizio riceve i campi validati e la risposta contiene solo quelli;
+     * un campo che non appartiene al DTO è una richiesta non valida.
+     */
+    @Test
+    void getAllAuto_WithFields_ShouldReturnOnlyRequestedFields() throws Exception {
+        when(autoService.findAll(AutoResponseDTO.fields(List.of("id", "marca", "prezzo"))))
+                .thenReturn(List.of(autoResponseDTO.select(AutoResponseDTO.fields(List.of("id", "marca", "prezzo")))));
+
+        mockMvc.perform(get("/api/auto").param("fields", "prezzo,id,marca"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].marca").value("Fiat"))
+                .andExpect(jsonPath("$[0].prezzo").value(5000))
+                .andExpect(jsonPath("$[0].modello").doesNotExist())
+                .andExpect(jsonPath("$[0].annoProduzione").doesNotExist())
+                .andExpect(jsonPath("$[0].version").doesNotExist());
+
+        assertEquals("[{\"id\":1,\"marca\":\"Fiat\",\"prezzo\":5000}]",
+                mockMvc.perform(get("/api/auto").param("fields", "prezzo,id,marca")).andReturn().getResponse().getContentAsString());
+
+        MockMvcBuilders.standaloneSetup(autoController).setControllerAdvice(new GlobalExceptionHandler())
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver()).build()
+                .perform(get("/api/auto/search").param("fields", "id,targa"))
+                .andExpect(status().isBadRequest());
+        verify(autoService, never()).search(any(), any(), any(), any());
+    }
+
+    /**
+     * Senza {@code fields} la risposta resta quella completa: anche i campi null vengono serializzati.
+     */
+    @Test
+    void getAllAuto_WithoutFields_ShouldKeepNullFields() throws Exception {
+        autoResponseDTO.setVersion(null);
+        when(autoService.findAll(AutoResponseDTO.FIELDS)).thenReturn(List.of(autoResponseDTO));
+
+        mockMvc.perform(get("/api/auto"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].annoProduzione").value(2010))
+                .andExpect(jsonPath("$[0]", hasKey("version")));
+    }
+
+    @Test
+    void searchAuto_ShouldReturnNotModifiedSinceLastChange() throws Exception {
+        String lastModified = mockMvc.perform(get("/api/auto/search/facets"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        MockMvcBuilders.standaloneSetup(autoController)
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver()).build()
+                .perform(get("/api/auto/search").param("marca", "Fiat").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/auto/search/facets").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        verify(autoService, never()).search(any(), any(), any(), any());
+        verify(autoService, times(1)).facets(any(), any());
+
+        // Due modifiche nello stesso secondo hanno comunque date diverse
+        catalogVersion.onAutoChanged(AutoChangedEvent.deleted(1L));
+        mockMvc.perform(get("/api/auto/search/facets").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void getAutoById_ShouldReturnAutoResponseDTO() throws Exception {
         when(autoService.findById(1L)).thenReturn(autoResponseDTO);
 
         mockMvc.perform(get("/api/auto/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.marca").value("Fiat"))
                 .andExpect(jsonPath("$.modello").value("Punto"))
                 .andExpect(jsonPath("$.annoProduzione").value(2010))
                 .andExpect(jsonPath("$.prezzo").value(5000))
-                .andExpect(jsonPath("$.stato").value("DISPONIBILE"));
+                .andExpect(jsonPath("$.stato").value("DISPONIBILE"))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void getAutoById_ShouldReturnNotModifiedForCurrentVersion() throws Exception {
+        when(autoService.findById(1L)).thenReturn(autoResponseDTO);
+
+        mockMvc.perform(get("/api/auto/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/auto/1").header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk());
     }
 
     @Test
@@ -91,12 +247,13 @@ public class AutoControllerTest {
 
     @Test
     void updateAuto_ShouldReturnUpdatedAutoResponseDTO() throws Exception {
-        when(autoService.update(eq(1L), any(AutoRequestDTO.class))).thenReturn(autoResponseDTO);
+        when(autoService.update(eq(1L), any(AutoRequestDTO.class), isNull())).thenReturn(autoResponseDTO);
 
         mockMvc.perform(put("/api/auto/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(autoRequestDTO)))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.marca").value("Fiat"))
                 .andExpect(jsonPath("$.modello").value("Punto"))
@@ -105,6 +262,37 @@ public class AutoControllerTest {
                 .andExpect(jsonPath("$.stato").value("DISPONIBILE"));
     }
 
+    @Test
+    void updateAuto_ShouldPassIfMatchVersions() throws Exception {
+        when(autoService.update(eq(1L), any(AutoRequestDTO.class), eq(List.of(2L, 3L)))).thenReturn(autoResponseDTO);
+
+        mockMvc.perform(put("/api/auto/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\", W/\"5\", \"abc\", \"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(autoRequestDTO)))
+                .andExpect(status().isOk());
+
+        when(autoService.update(eq(1L), any(AutoRequestDTO.class), isNull())).thenReturn(autoResponseDTO);
+        mockMvc.perform(put("/api/auto/1")
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(autoRequestDTO)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateAuto_ShouldReturnPreconditionFailedOnVersionConflict() throws Exception {
+        when(autoService.update(eq(1L), any(AutoRequestDTO.class), eq(List.of(2L))))
+                .thenThrow(new OptimisticLockingFailureException("versione attuale 3"));
+
+        MockMvcBuilders.standaloneSetup(autoController).setControllerAdvice(new GlobalExceptionHandler()).build()
+                .perform(put("/api/auto/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(autoRequestDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void deleteAuto_ShouldReturnNoContent() throws Exception {
         doNothing().when(autoService).deleteById(1L);
@@ -112,4 +300,178 @@ public class AutoControllerTest {
         mockMvc.perform(delete("/api/auto/1"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    /**
+     * Solo i parametri non validi diventano 400: le altre {@link IllegalArgumentException} sono errori del server.
+     */
+    @Test
+    void searchAutoKeyset_ShouldReturnBadRequestOnlyForInvalidParameters() throws Exception {
+        MockMvc adviced = MockMvcBuilders.standaloneSetup(autoController).setControllerAdvice(new GlobalExceptionHandler()).build();
+        when(autoService.searchKeyset(any(AutoSearchCriteriaDTO.class), eq("id"), eq(Sort.Direction.ASC), eq(20), eq("rotto")))
+                .thenThrow(new InvalidQueryParameterException("Cursore non valido"));
+        when(autoService.searchKeyset(any(AutoSearchCriteriaDTO.class), eq("id"), eq(Sort.Direction.ASC), eq(20), eq("bug")))
+                .thenThrow(new IllegalArgumentException("dettaglio interno"));
+
+        adviced.perform(get("/api/auto/search/keyset").param("cursor", "rotto"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cursore non valido"));
+        adviced.perform(get("/api/auto/search/keyset").param("cursor", "bug"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string(not(containsString("dettaglio interno"))));
+    }
+
+    @Test
+    void exportAuto_ShouldStreamOneJsonObjectPerLine() throws Exception {
+        AutoResponseDTO other = new AutoResponseDTO(2L, "Ford", "Focus", 2019, BigDecimal.valueOf(18000), "VENDUTA", 0L);
+        when(autoService.streamAll()).thenReturn(Stream.of(autoResponseDTO, other));
+
+        MvcResult result = mockMvc.perform(get("/api/auto/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(autoResponseDTO) + "\n"
+                                + objectMapper.writeValueAsString(other) + "\n"));
+    }
+
+    @Test
+    void getChanges_ShouldReturnChangesAfterCursor() throws Exception {
+        AutoChangesDTO changes = new AutoChangesDTO(List.of(
+                new AutoChangeDTO(42L, "UPDATED", 1L, Instant.parse("2025-01-01T10:00:00Z"), autoResponseDTO),
+                new AutoChangeDTO(43L, "DELETED", 2L, Instant.parse("2025-01-01T10:00:01Z"), null)), 43L);
+        when(autoChangeService.awaitChanges(41L, 50, Duration.ofSeconds(20)))
+                .thenReturn(CompletableFuture.completedFuture(changes));
+
+        MvcResult result = mockMvc.perform(get("/api/auto/changes").param("after", "41").param("limit", "50").param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor").value(43))
+                .andExpect(jsonPath("$.changes[0].sequence").value(42))
+                .andExpect(jsonPath("$.changes[0].type").value("UPDATED"))
+                .andExpect(jsonPath("$.changes[0].auto.version").value(3))
+                .andExpect(jsonPath("$.changes[1].type").value("DELETED"))
+                .andExpect(jsonPath("$.changes[1].auto").doesNotExist());
+    }
+
+    @Test
+    void importAutoCsv_ShouldReturnImportReport() throws Exception {
+        AutoImportReportDTO report = new AutoImportReportDTO(1, 1, 0,
+                List.of(new AutoImportBatchReportDTO(1, 1, 1, 1, true, List.of())));
+        when(autoImportService.importCsv(any(InputStream.class))).thenReturn(report);
+
+        mockMvc.perform(post("/api/auto/import")
+                        .contentType("text/csv")
+                        .content("marca,modello,annoProduzione,prezzo,stato\nFiat,Punto,2010,5000,DISPONIBILE\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.batches[0].committed").value(true));
+    }
+
+    @Test
+    void updateStato_ShouldReturnUpdatedCount() throws Exception {
+        AutoBulkStatoRequestDTO request = new AutoBulkStatoRequestDTO(List.of(1L, 2L), "VENDUTA");
+        when(autoService.updateStato(request)).thenReturn(new AutoBulkResultDTO(2));
+
+        mockMvc.perform(patch("/api/auto/stato")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+    }
+
+    @Test
+    void updateStato_ShouldRejectEmptyIds() throws Exception {
+        mockMvc.perform(patch("/api/auto/stato")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AutoBulkStatoRequestDTO(List.of(), "VENDUTA"))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(autoService);
+    }
+
+    @Test
+    void facetsAuto_ShouldPassFiltersAndPrezzoBuckets() throws Exception {
+        List<BigDecimal> prezzoBuckets = List.of(new BigDecimal("10000"), new BigDecimal("20000"));
+        when(autoService.facets(any(AutoSearchCriteriaDTO.class), eq(prezzoBuckets))).thenReturn(new AutoFacetsDTO(
+                1, Map.of("Fiat", 1L), Map.of("DISPONIBILE", 1L), List.of(
+                        new AutoPrezzoBucketDTO(null, new BigDecimal("10000"), 1),
+                        new AutoPrezzoBucketDTO(new BigDecimal("10000"), new BigDecimal("20000"), 0),
+                        new AutoPrezzoBucketDTO(new BigDecimal("20000"), null, 0))));
+
+        mockMvc.perform(get("/api/auto/search/facets").param("marca", "fiat").param("prezzoBuckets", "10000,20000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.marca.Fiat").value(1))
+                .andExpect(jsonPath("$.stato.DISPONIBILE").value(1))
+                .andExpect(jsonPath("$.prezzo[0].max").value(10000))
+                .andExpect(jsonPath("$.prezzo[0].count").value(1));
+
+        verify(autoService).facets(argThat(criteria -> "fiat".equals(criteria.getMarca())), eq(prezzoBuckets));
+    }
+
+    @Test
+    void searchAuto_WithoutCount_ShouldMarkTotalApproximate() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 1);
+        when(autoService.search(any(AutoSearchCriteriaDTO.class), eq(pageable), eq(ConteggioTotale.NESSUNO), eq(AutoResponseDTO.FIELDS)))
+                .thenReturn(new AutoSearchPageDTO(List.of(autoResponseDTO), pageable, 2, true));
+
+        MockMvcBuilders.standaloneSetup(autoController)
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver()).build()
+                .perform(get("/api/auto/search").param("stato", "DISPONIBILE").param("size", "1").param("conteggio", "NESSUNO"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.totalApproximate").value(true))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
+    /**
+     * Con Accept CBOR o Smile la stessa auto e la stessa pagina vengono scritte nel formato binario,
+     * senza Accept la risposta resta JSON.
+     */
+    @Test
+    void getAuto_ShouldNegotiateBinaryFormats() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 1);
+        when(autoService.findById(1L)).thenReturn(autoResponseDTO);
+        when(autoService.search(any(AutoSearchCriteriaDTO.class), eq(pageable), eq(ConteggioTotale.ESATTO), eq(AutoResponseDTO.FIELDS)))
+                .thenReturn(new AutoSearchPageDTO(List.of(autoResponseDTO), pageable, 2, false));
+        BinaryFormatConfig binaryFormatConfig = new BinaryFormatConfig();
+        MockMvc binaryMockMvc = MockMvcBuilders.standaloneSetup(autoController)
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(),
+                        binaryFormatConfig.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                        binaryFormatConfig.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()))
+                .build();
+
+        byte[] cbor = binaryMockMvc.perform(get("/api/auto/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(autoResponseDTO, new CBORMapper().readValue(cbor, AutoResponseDTO.class));
+        binaryMockMvc.perform(get("/api/auto/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+        byte[] smile = binaryMockMvc.perform(get("/api/auto/search").param("size", "1")
+                        .accept(BinaryFormatConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryFormatConfig.APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+        SmileMapper smileMapper = new SmileMapper();
+        assertEquals(2L, smileMapper.readerFor(Long.class).at("/totalElements").<Long>readValue(smile));
+        assertEquals(autoResponseDTO, smileMapper.readerFor(AutoResponseDTO.class).at("/content/0").readValue(smile));
+
+        binaryMockMvc.perform(get("/api/auto/1"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.prezzo").value(5000));
+    }
+}
@@ -0,0 +1,130 @@
+package com.autoxy.catalogo_auto.Controller;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import com.autoxy.catalogo_auto.Service.AutoSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test dell'API reattiva attraverso Tomcat, la catena di sicurezza e un database H2 in memoria.
+ * Verifica che le regole di ricerca siano le stesse di {@code /api/auto/search} e che gli errori
+ * abbiano le stesse risposte di {@code GlobalExceptionHandler}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:reactive")
+public class AutoReactiveHandlerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @Autowired
+    private AutoSearchIndex autoSearchIndex;
+
+    private Auto panda;
+
+    @BeforeEach
+    void setUp() {
+        panda = autoRepository.save(new Auto(null, "Fiat", "Panda", 2020, new BigDecimal("15000.00"), StatoAuto.DISPONIBILE));
+        autoRepository.save(new Auto(null, "Fiat", "Tipo", 2018, new BigDecimal("12000.00"), StatoAuto.DISPONIBILE));
+        autoRepository.save(new Auto(null, "FIAT", "500", 2021, new BigDecimal("18000.00"), StatoAuto.DISPONIBILE));
+        autoRepository.save(new Auto(null, "Fiat", "Punto", 2010, new BigDecimal("5000.00"), StatoAuto.VENDUTA));
+        autoRepository.save(new Auto(null, "Ford", "Focus", 2019, new BigDecimal("16000.00"), StatoAuto.DISPONIBILE));
+        // Le auto salvate direttamente dal repository non aggiornano l'indice di ricerca
+        autoSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        autoRepository.deleteAll();
+    }
+
+    @Test
+    void findById_ShouldReturnAuto() {
+        webTestClient.get().uri("/api/reactive/auto/{id}", panda.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.modello").isEqualTo("Panda")
+                .jsonPath("$.stato").isEqualTo("DISPONIBILE");
+    }
+
+    @Test
+    void findById_ShouldReturnNotFound() {
+        webTestClient.get().uri("/api/reactive/auto/{id}", 999_999)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Auto non trovata con ID: 999999");
+    }
+
+    @Test
+    void findAll_ShouldStreamWholeCatalog() {
+        List<AutoResponseDTO> autos = webTestClient.get().uri("/api/reactive/auto")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(AutoResponseDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(5, autos.size());
+    }
+
+    /**
+     * Verifica marca case-insensitive, intervallo di prezzo e stato, con pagine da una sola auto
+     * per attraversare più pagine keyset.
+     */
+    @Test
+    void search_ShouldApplySameFiltersAcrossPages() {
+        List<AutoResponseDTO> autos = webTestClient.get()
+                .uri("/api/reactive/auto/search?marca=fIaT&prezzoMin=10000&prezzoMax=16000&stato=DISPONIBILE&sort=prezzo&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(AutoResponseDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of("Tipo", "Panda"), autos.stream().map(AutoResponseDTO::getModello).toList());
+    }
+
+    @Test
+    void search_ShouldReturnNotFoundWhenNothingMatches() {
+        webTestClient.get().uri("/api/reactive/auto/search?marca=Lancia")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void search_ShouldRejectInvalidParameters() {
+        webTestClient.get().uri("/api/reactive/auto/search?stato=USATA")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.stato").exists();
+
+        webTestClient.get().uri("/api/reactive/auto/search?sort=colore")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get().uri("/api/reactive/auto/search?size=tante")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,49 @@
+package com.autoxy.catalogo_auto.Mapper;
+
+import java.math.BigDecimal;
+
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Model.Auto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link AutoMapper} che verifica la copia dei campi
+ * e la conversione String↔{@link StatoAuto} per lo stato.
+ */
+public class AutoMapperTest {
+
+    private final AutoMapper autoMapper = new AutoMapper();
+
+    @Test
+    void toResponseDTO_ShouldCopyAllFields() {
+        Auto auto = new Auto(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), StatoAuto.DISPONIBILE);
+        auto.setVersion(3L);
+
+        AutoResponseDTO result = autoMapper.toResponseDTO(auto);
+
+        assertEquals(new AutoResponseDTO(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE", 3L), result);
+    }
+
+    @Test
+    void toEntity_ShouldCopyAllFieldsWithoutId() {
+        AutoRequestDTO request = new AutoRequestDTO("Ford", "Focus", 2019, BigDecimal.valueOf(18000), "VENDUTA");
+
+        Auto result = autoMapper.toEntity(request);
+
+        assertEquals(new Auto(null, "Ford", "Focus", 2019, BigDecimal.valueOf(18000), StatoAuto.VENDUTA), result);
+    }
+
+    @Test
+    void updateEntity_ShouldKeepId() {
+        Auto auto = new Auto(7L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), StatoAuto.DISPONIBILE);
+        AutoRequestDTO request = new AutoRequestDTO("Fiat", "Punto", 2011, BigDecimal.valueOf(4500), "VENDUTA");
+
+        autoMapper.updateEntity(request, auto);
+
+        assertEquals(new Auto(7L, "Fiat", "Punto", 2011, BigDecimal.valueOf(4500), StatoAuto.VENDUTA), auto);
+    }
+}
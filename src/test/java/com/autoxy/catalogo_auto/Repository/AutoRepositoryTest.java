@@ -0,0 +1,287 @@
+package com.autoxy.catalogo_auto.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link AutoRepository} su database H2 in memoria.
+ *
+ * <p>Verifica che la ricerca usi gli indici definiti su {@link Auto}: la SQL generata da Hibernate
+ * viene catturata con uno {@link StatementInspector} e passata a {@code EXPLAIN} con gli stessi parametri.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.autoxy.catalogo_auto.Repository.AutoRepositoryTest$SqlCapture")
+public class AutoRepositoryTest {
+
+    /**
+     * Registra le istruzioni SQL preparate da Hibernate.
+     */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        List<Auto> autos = new ArrayList<>();
+        String[] marche = {"Fiat", "Ford", "Renault", "Toyota", "Opel"};
+        for (int i = 0; i < 500; i++) {
+            autos.add(new Auto(null, marche[i % marche.length], "Modello " + i, 2000 + i % 20,
+                    BigDecimal.valueOf(5000 + i * 50L), i % 4 == 0 ? StatoAuto.VENDUTA : StatoAuto.DISPONIBILE));
+        }
+        autoRepository.saveAll(autos);
+        entityManager.flush();
+        entityManager.clear();
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void search_ShouldMatchMarcaCaseInsensitively() {
+        assertEquals(100, autoRepository.search(criteria("fiat", null, null, null), PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(100, autoRepository.search(criteria("FIAT", null, null, null), PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void search_ByMarca_ShouldUseMarcaIndex() {
+        autoRepository.search(criteria("fiat", null, null, null), PageRequest.of(0, 10, Sort.by("prezzo")));
+
+        assertTrue(explainSearch("fiat").contains("IDX_AUTO_MARCA_PREZZO"));
+    }
+
+    @Test
+    void search_ByStatoAndPrezzo_ShouldUsePrezzoIndex() {
+        autoRepository.search(criteria(null, StatoAuto.VENDUTA, null, new BigDecimal("6000")), PageRequest.of(0, 10));
+
+        assertTrue(explainSearch("VENDUTA", new BigDecimal("6000")).contains("IDX_AUTO_PREZZO"));
+    }
+
+    @Test
+    void search_ByPrezzoRange_ShouldUsePrezzoIndex() {
+        autoRepository.search(criteria(null, null, new BigDecimal("6000"), new BigDecimal("7000")), PageRequest.of(0, 10));
+
+        assertTrue(explainSearch(new BigDecimal("6000"), new BigDecimal("7000")).contains("IDX_AUTO_PREZZO"));
+    }
+
+    @Test
+    void search_ByModello_ShouldUseModelloIndex() {
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        criteria.setModello("MODELLO 7");
+
+        assertEquals(1, autoRepository.search(criteria, PageRequest.of(0, 10)).getTotalElements());
+        assertTrue(explainSearch("modello 7").contains("IDX_AUTO_MODELLO"));
+    }
+
+    @Test
+    void search_ByAnnoRange_ShouldUseAnnoIndex() {
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        criteria.setAnnoMin(2003);
+        criteria.setAnnoMax(2004);
+
+        assertEquals(50, autoRepository.search(criteria, PageRequest.of(0, 10)).getTotalElements());
+        assertTrue(explainSearch(2003, 2004).contains("IDX_AUTO_ANNO_PRODUZIONE"));
+    }
+
+    /**
+     * Verifica che la SQL contenga solo i predicati dei filtri valorizzati e che la stessa combinazione
+     * di filtri produca sempre la stessa istruzione, con i valori come parametri.
+     */
+    @Test
+    void search_ShouldEmitOnlySuppliedPredicatesAsParameters() {
+        autoRepository.search(criteria("fiat", null, null, null), PageRequest.of(0, 10));
+        autoRepository.search(criteria("ford", null, null, null), PageRequest.of(0, 10));
+
+        List<String> statements = SqlCapture.STATEMENTS.stream()
+                .filter(statement -> !statement.contains("count("))
+                .toList();
+        assertEquals(2, statements.size());
+        assertEquals(statements.get(0), statements.get(1));
+        String where = statements.get(0).substring(statements.get(0).indexOf(" where "));
+        assertTrue(where.contains("marca_normalizzata=?"));
+        assertFalse(where.contains("stato"));
+        assertFalse(where.contains("prezzo"));
+        assertFalse(where.contains("is null"));
+    }
+
+    @Test
+    void updateStatoByIdIn_ShouldUpdateWithOneStatement() {
+        List<Long> ids = autoRepository.findAll(PageRequest.of(0, 3, Sort.by("id"))).map(Auto::getId).getContent();
+        SqlCapture.STATEMENTS.clear();
+
+        int updated = autoRepository.updateStatoByIdIn(List.of(ids.get(0), ids.get(1), ids.get(2), -1L), StatoAuto.VENDUTA);
+
+        assertEquals(3, updated);
+        assertEquals(1, SqlCapture.STATEMENTS.stream().filter(statement -> statement.startsWith("update")).count());
+        assertTrue(autoRepository.findAllById(ids).stream().allMatch(auto -> auto.getStato() == StatoAuto.VENDUTA));
+        assertTrue(autoRepository.findAllById(ids).stream().allMatch(auto -> auto.getVersion() == 1L));
+    }
+
+    @Test
+    void saveAndFlush_ShouldRejectStaleVersion() {
+        Auto stale = autoRepository.findAll(PageRequest.of(0, 1, Sort.by("id"))).getContent().get(0);
+        assertEquals(0L, stale.getVersion());
+        entityManager.detach(stale);
+
+        Auto current = autoRepository.findById(stale.getId()).orElseThrow();
+        current.setPrezzo(new BigDecimal("1000.00"));
+        assertEquals(1L, autoRepository.saveAndFlush(current).getVersion());
+
+        stale.setPrezzo(new BigDecimal("2000.00"));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> autoRepository.saveAndFlush(stale));
+    }
+
+    @Test
+    void updatePrezzoByIdIn_ShouldApplyPercentageRoundedToCents() {
+        Auto fiat = autoRepository.search(criteria("fiat", null, null, null), PageRequest.of(0, 1, Sort.by("id"))).getContent().get(0);
+        Auto ford = autoRepository.search(criteria("ford", null, null, null), PageRequest.of(0, 1, Sort.by("id"))).getContent().get(0);
+
+        List<Long> ids = autoRepository.findIdsByMarcaForUpdate("fiat");
+        int updated = autoRepository.updatePrezzoByIdIn(ids, new BigDecimal("7.33"));
+
+        assertEquals(100, ids.size());
+        assertEquals(100, updated);
+        assertEquals(fiat.getPrezzo().multiply(new BigDecimal("1.0733")).setScale(2, RoundingMode.HALF_UP),
+                autoRepository.findById(fiat.getId()).orElseThrow().getPrezzo());
+        assertEquals(0, ford.getPrezzo().compareTo(autoRepository.findById(ford.getId()).orElseThrow().getPrezzo()));
+        assertEquals(1L, autoRepository.findById(fiat.getId()).orElseThrow().getVersion());
+        assertEquals(0L, autoRepository.findById(ford.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void searchResponses_ShouldMatchSearchWithoutManagedEntities() {
+        AutoSearchCriteriaDTO criteria = criteria("fiat", StatoAuto.DISPONIBILE, null, new BigDecimal("20000"));
+        PageRequest pageable = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "annoProduzione"));
+        List<AutoResponseDTO> expected = autoRepository.search(criteria, pageable).map(new AutoMapper()::toResponseDTO).getContent();
+        entityManager.clear();
+
+        Page<AutoResponseDTO> page = autoRepository.searchResponses(criteria, pageable);
+
+        assertEquals(expected, page.getContent());
+        assertEquals(autoRepository.search(criteria, pageable).getTotalElements(), page.getTotalElements());
+        entityManager.clear();
+        autoRepository.searchResponses(criteria, pageable);
+        autoRepository.findResponsesByIdGreaterThan(0L, Limit.of(50));
+        assertEquals(0, entityManager.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities());
+    }
+
+    @Test
+    void sliceResponses_ShouldReadOneMoreRowInsteadOfCounting() {
+        AutoSearchCriteriaDTO criteria = criteria(null, StatoAuto.DISPONIBILE, null, null);
+        PageRequest pageable = PageRequest.of(2, 10, Sort.by("prezzo"));
+
+        Slice<AutoResponseDTO> slice = autoRepository.sliceResponses(criteria, pageable);
+
+        assertEquals(1, SqlCapture.STATEMENTS.size());
+        assertFalse(SqlCapture.STATEMENTS.get(0).contains("count("));
+        assertTrue(slice.hasNext());
+        assertEquals(autoRepository.searchResponses(criteria, pageable).getContent(), slice.getContent());
+        assertFalse(autoRepository.sliceResponses(criteria, PageRequest.of(37, 10, Sort.by("prezzo"))).hasNext());
+        assertEquals(375, autoRepository.countResponses(criteria));
+    }
+
+    /**
+     * Con solo alcuni campi la SELECT legge solo le loro colonne, anche ordinando per un campo non richiesto,
+     * e i DTO hanno gli stessi valori della lettura completa.
+     */
+    @Test
+    void searchResponses_WithFields_ShouldSelectOnlyRequestedColumns() {
+        AutoSearchCriteriaDTO criteria = criteria(null, StatoAuto.DISPONIBILE, null, null);
+        PageRequest pageable = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "annoProduzione"));
+
+        Set<String> fields = AutoResponseDTO.fields(List.of("prezzo", "id"));
+        Page<AutoResponseDTO> page = autoRepository.searchResponses(criteria, pageable, fields);
+
+        String select = SqlCapture.STATEMENTS.get(0).substring(0, SqlCapture.STATEMENTS.get(0).indexOf(" from "));
+        assertTrue(select.contains("id") && select.contains("prezzo"), select);
+        assertFalse(select.contains("marca") || select.contains("modello") || select.contains("anno_produzione")
+                || select.contains("stato") || select.contains("version"), select);
+        assertEquals(375, page.getTotalElements());
+        List<AutoResponseDTO> expected = autoRepository.searchResponses(criteria, pageable).getContent().stream()
+                .map(auto -> auto.select(fields))
+                .toList();
+        assertEquals(expected, page.getContent());
+    }
+
+    @Test
+    void facets_ShouldCountMarcaStatoAndPrezzoBucketsWithOneQuery() {
+        List<AutoFacetsRepository.FacetGroup> groups = autoRepository.facets(criteria(null, StatoAuto.VENDUTA, null, null),
+                List.of(new BigDecimal("10000"), new BigDecimal("20000")));
+
+        assertEquals(1, SqlCapture.STATEMENTS.size());
+        assertTrue(SqlCapture.STATEMENTS.get(0).contains("group by"));
+        assertEquals(5, groups.size());
+        assertTrue(groups.stream().allMatch(group -> group.stato() == StatoAuto.VENDUTA && group.count() == 25));
+        long[] buckets = new long[3];
+        groups.forEach(group -> {
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                buckets[bucket] += group.prezzoBuckets()[bucket];
+            }
+        });
+        assertArrayEquals(new long[]{25, 50, 50}, buckets);
+    }
+
+    private static AutoSearchCriteriaDTO criteria(String marca, StatoAuto stato, BigDecimal prezzoMin, BigDecimal prezzoMax) {
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        criteria.setMarca(marca);
+        criteria.setStato(stato);
+        criteria.setPrezzoMin(prezzoMin);
+        criteria.setPrezzoMax(prezzoMax);
+        return criteria;
+    }
+
+    /**
+     * Esegue {@code EXPLAIN} sulla prima query di selezione catturata (la pagina, non la count)
+     * con i parametri indicati, nell'ordine in cui compaiono nella SQL.
+     */
+    private String explainSearch(Object... parameters) {
+        String sql = SqlCapture.STATEMENTS.stream()
+                .filter(statement -> !statement.contains("count("))
+                .findFirst()
+                .orElseThrow();
+        var query = entityManager.createNativeQuery("EXPLAIN " + sql);
+        int position = 1;
+        for (Object parameter : parameters) {
+            query.setParameter(position++, parameter);
+        }
+        // La pagina usa parametri aggiuntivi per OFFSET/FETCH
+        while (position <= sql.chars().filter(c -> c == '?').count()) {
+            query.setParameter(position++, 10);
+        }
+        return (String) query.getSingleResult();
+    }
+}
@@ -0,0 +1,209 @@
+package com.autoxy.catalogo_auto.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.autoxy.catalogo_auto.Config.AutoSequenceInitializer;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoChangeDTO;
+import com.autoxy.catalogo_auto.DTO.AutoChangesDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRepriceRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Repository.AutoChangeRepository;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link AutoChangeServiceImpl} su database H2 in memoria.
+ * I test non sono transazionali: le modifiche vengono confermate da {@link AutoServiceImpl} come in produzione.
+ * Un consumatore locale ({@link LocalConsumer}) sostituisce i sistemi a valle: legge il feed a partire
+ * dal proprio cursore e deve ricostruire esattamente il catalogo.
+ */
+@DataJpaTest(properties = "catalogo.changes.max-limit=3")
+@Import({AutoChangeServiceImpl.class, AutoServiceImpl.class, AutoMapper.class, AutoSearchIndex.class,
+        AutoCache.class, AutoSequenceInitializer.class})
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AutoChangeServiceImplTest {
+
+    @Autowired
+    private AutoChangeService autoChangeService;
+
+    @Autowired
+    private AutoService autoService;
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @Autowired
+    private AutoChangeRepository autoChangeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        autoRepository.deleteAll();
+        autoChangeRepository.deleteAll();
+    }
+
+    @Test
+    void findChanges_ShouldRecordEveryMutationInOrder() {
+        AutoResponseDTO panda = autoService.save(request("Fiat", "Panda", "15000"));
+        AutoResponseDTO focus = autoService.save(request("Ford", "Focus", "18000"));
+        autoService.update(panda.getId(), request("Fiat", "Panda", "14000"), null);
+        autoService.deleteById(focus.getId());
+
+        // Al massimo catalogo.changes.max-limit modifiche per volta: il cursore porta al blocco successivo
+        AutoChangesDTO first = autoChangeService.findChanges(0, 10);
+        AutoChangesDTO second = autoChangeService.findChanges(first.getCursor(), 10);
+
+        assertEquals(List.of("CREATED", "CREATED", "UPDATED"), first.getChanges().stream().map(AutoChangeDTO::getType).toList());
+        assertEquals(first.getChanges().getLast().getSequence(), first.getCursor());
+        AutoChangeDTO updated = first.getChanges().get(2);
+        assertEquals(panda.getId(), updated.getAutoId());
+        assertEquals(0, new BigDecimal("14000").compareTo(updated.getAuto().getPrezzo()));
+        assertEquals(1L, updated.getAuto().getVersion());
+
+        assertEquals(1, second.getChanges().size());
+        AutoChangeDTO deleted = second.getChanges().getFirst();
+        assertEquals("DELETED", deleted.getType());
+        assertEquals(focus.getId(), deleted.getAutoId());
+        assertNull(deleted.getAuto());
+        assertEquals(updated.getSequence() + 1, deleted.getSequence());
+
+        AutoChangesDTO none = autoChangeService.findChanges(second.getCursor(), 10);
+        assertTrue(none.getChanges().isEmpty());
+        assertEquals(second.getCursor(), none.getCursor());
+    }
+
+    @Test
+    void findChanges_ShouldRejectInvalidCursorOrLimit() {
+        assertThrows(InvalidQueryParameterException.class, () -> autoChangeService.findChanges(-1, 10));
+        assertThrows(InvalidQueryParameterException.class, () -> autoChangeService.findChanges(0, 0));
+    }
+
+    /**
+     * Le modifiche annullate non vengono registrate: la riga outbox fa parte della stessa transazione.
+     */
+    @Test
+    void onAutoChanged_ShouldNotRecordRolledBackChanges() {
+        transactionTemplate.executeWithoutResult(status -> {
+            autoService.save(request("Fiat", "Panda", "15000"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, autoRepository.count());
+        assertTrue(autoChangeService.findChanges(0, 10).getChanges().isEmpty());
+    }
+
+    /**
+     * L'eliminazione di un ID inesistente non registra modifiche.
+     */
+    @Test
+    void onAutoChanged_ShouldNotRecordDeletionOfMissingAuto() {
+        AutoResponseDTO panda = autoService.save(request("Fiat", "Panda", "15000"));
+        long cursor = autoChangeService.findChanges(0, 10).getCursor();
+
+        autoService.deleteById(panda.getId() + 1);
+
+        assertTrue(autoChangeService.findChanges(cursor, 10).getChanges().isEmpty());
+        assertEquals(1, autoRepository.count());
+    }
+
+    /**
+     * Il consumatore locale legge il feed a blocchi, anche dopo aggiornamenti massivi che non caricano le entità,
+     * e ottiene lo stesso catalogo del database.
+     */
+    @Test
+    void findChanges_ShouldLetConsumerRebuildCatalog() {
+        LocalConsumer consumer = new LocalConsumer();
+        AutoResponseDTO panda = autoService.save(request("Fiat", "Panda", "15000"));
+        AutoResponseDTO tipo = autoService.save(request("Fiat", "Tipo", "17000"));
+        AutoResponseDTO corsa = autoService.save(request("Opel", "Corsa", "9000"));
+        consumer.poll();
+
+        autoService.update(corsa.getId(), request("Opel", "Corsa", "8500"), null);
+        autoService.updateStato(new AutoBulkStatoRequestDTO(List.of(panda.getId(), tipo.getId()), "VENDUTA"));
+        autoService.reprice(new AutoRepriceRequestDTO("fiat", new BigDecimal("-10")));
+        autoService.deleteById(panda.getId());
+        autoService.save(request("Ford", "Focus", "18000"));
+        consumer.poll();
+
+        assertEquals(autoRepository.findAllResponses().stream()
+                        .collect(Collectors.toMap(AutoResponseDTO::getId, Function.identity())),
+                consumer.catalog);
+    }
+
+    @Test
+    void awaitChanges_ShouldCompleteAfterNextCommit() throws Exception {
+        long cursor = autoChangeService.findChanges(0, 10).getCursor();
+        CompletableFuture<AutoChangesDTO> pending = autoChangeService.awaitChanges(cursor, 10, Duration.ofSeconds(20));
+        assertFalse(pending.isDone());
+
+        AutoResponseDTO saved = autoService.save(request("Fiat", "Panda", "15000"));
+
+        AutoChangesDTO changes = pending.get(5, TimeUnit.SECONDS);
+        assertEquals(1, changes.getChanges().size());
+        assertEquals(saved.getId(), changes.getChanges().getFirst().getAutoId());
+    }
+
+    @Test
+    void awaitChanges_ShouldReturnEmptyWhenWaitExpires() throws Exception {
+        autoService.save(request("Fiat", "Panda", "15000"));
+        long cursor = autoChangeService.findChanges(0, 10).getCursor();
+
+        assertTrue(autoChangeService.awaitChanges(cursor, 10, Duration.ZERO).isDone());
+        AutoChangesDTO changes = autoChangeService.awaitChanges(cursor, 10, Duration.ofMillis(100)).get(5, TimeUnit.SECONDS);
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals(cursor, changes.getCursor());
+    }
+
+    private static AutoRequestDTO request(String marca, String modello, String prezzo) {
+        return new AutoRequestDTO(marca, modello, 2020, new BigDecimal(prezzo), "DISPONIBILE");
+    }
+
+    /**
+     * Consumatore del feed che mantiene una copia del catalogo, come farebbe un motore di ricerca esterno.
+     */
+    private class LocalConsumer {
+        private final Map<Long, AutoResponseDTO> catalog = new TreeMap<>();
+        private long cursor;
+
+        void poll() {
+            AutoChangesDTO changes;
+            do {
+                changes = autoChangeService.findChanges(cursor, 100);
+                for (AutoChangeDTO change : changes.getChanges()) {
+                    if (change.getAuto() == null) {
+                        catalog.remove(change.getAutoId());
+                    } else {
+                        catalog.put(change.getAutoId(), change.getAuto());
+                    }
+                }
+                cursor = changes.getCursor();
+            } while (!changes.getChanges().isEmpty());
+        }
+    }
+}
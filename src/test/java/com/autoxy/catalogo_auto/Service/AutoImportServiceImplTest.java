@@ -0,0 +1,121 @@
+package com.autoxy.catalogo_auto.Service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.autoxy.catalogo_auto.DTO.AutoImportBatchReportDTO;
+import com.autoxy.catalogo_auto.DTO.AutoImportReportDTO;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link AutoImportServiceImpl} su database H2 in memoria.
+ * I test non sono transazionali: ogni batch dell'importazione viene confermato nella propria transazione.
+ */
+@DataJpaTest(properties = "catalogo.import.batch-size=2")
+@Import({AutoImportServiceImpl.class, AutoMapper.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AutoImportServiceImplTest {
+
+    @Autowired
+    private AutoImportService autoImportService;
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @AfterEach
+    void tearDown() {
+        autoRepository.deleteAll();
+    }
+
+    @Test
+    void importCsv_ShouldSaveValidRowsAndReportErrorsPerBatch() throws Exception {
+        String csv = """
+                marca,modello,annoProduzione,prezzo,stato
+                Fiat,Panda,2020,15000,DISPONIBILE
+                Fiat,500,2021,-1,DISPONIBILE
+                Ford,Focus,abc,18000,VENDUTA
+                Fiat,Tipo,2018,15000,VENDUTA
+                Opel,Corsa,2015,7000,DISPONIBILE
+                """;
+
+        AutoImportReportDTO report = autoImportService.importCsv(stream(csv));
+
+        assertEquals(5, report.getRows());
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(3, report.getBatches().size());
+
+        AutoImportBatchReportDTO first = report.getBatches().get(0);
+        assertEquals(1, first.getFirstRow());
+        assertEquals(2, first.getLastRow());
+        assertEquals(1, first.getImported());
+        assertTrue(first.isCommitted());
+        assertEquals(1, first.getErrors().size());
+        assertTrue(first.getErrors().get(0).startsWith("Riga 2: prezzo:"));
+
+        AutoImportBatchReportDTO second = report.getBatches().get(1);
+        assertEquals(1, second.getImported());
+        assertTrue(second.getErrors().get(0).startsWith("Riga 3:"));
+
+        List<Auto> saved = autoRepository.findAll();
+        assertEquals(3, saved.size());
+        assertTrue(saved.stream().allMatch(auto -> auto.getId() != null));
+    }
+
+    @Test
+    void importJson_ShouldSaveAllRowsOfTheArray() throws Exception {
+        String json = """
+                [
+                  {"marca": "Fiat", "modello": "Panda", "annoProduzione": 2020, "prezzo": 15000, "stato": "DISPONIBILE"},
+                  {"marca": "Ford", "modello": "Focus", "annoProduzione": 2019, "prezzo": 18000, "stato": "VENDUTA"},
+                  {"marca": "Opel", "modello": "Corsa", "annoProduzione": 2015, "prezzo": 7000, "stato": "DISPONIBILE"}
+                ]
+                """;
+
+        AutoImportReportDTO report = autoImportService.importJson(stream(json));
+
+        assertEquals(3, report.getImported());
+        assertEquals(0, report.getRejected());
+        assertEquals(2, report.getBatches().size());
+        assertEquals(3, autoRepository.count());
+    }
+
+    /**
+     * Verifica che un JSON troncato interrompa l'importazione mantenendo le righe già lette.
+     */
+    @Test
+    void importJson_ShouldStopOnMalformedContent() throws Exception {
+        String json = """
+                [
+                  {"marca": "Fiat", "modello": "Panda", "annoProduzione": 2020, "prezzo": 15000, "stato": "DISPONIBILE"},
+                  {"marca": "Ford", "modello": "Fo
+                """;
+
+        AutoImportReportDTO report = autoImportService.importJson(stream(json));
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, autoRepository.count());
+        List<String> errors = report.getBatches().get(report.getBatches().size() - 1).getErrors();
+        assertTrue(errors.get(errors.size() - 1).contains("importazione interrotta"));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,299 @@
+package com.autoxy.catalogo_auto.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoFacetsRepository.FacetGroup;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Classe di test per {@link AutoSearchIndex} su database H2 in memoria.
+ * Ogni ricerca sull'indice viene confrontata con la stessa ricerca eseguita dal database
+ * con {@link AutoRepository#searchResponses}, e ogni conteggio con {@link AutoRepository#facets}, prima e dopo l'applicazione di modifiche al catalogo.
+ */
+@DataJpaTest
+@Import({AutoSearchIndex.class, AutoMapper.class, CatalogVersion.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AutoSearchIndexTest {
+
+    private static final String[] MARCHE = {"Fiat", "FIAT", "fiat", "Ford", "Opel", "Alfa Romeo"};
+    private static final String[] MODELLI = {"Panda", "panda", "Focus", "Corsa", "Giulia"};
+
+    private static final List<Sort> SORTS = List.of(
+            Sort.unsorted(),
+            Sort.by("prezzo"),
+            Sort.by(Sort.Direction.DESC, "prezzo"),
+            Sort.by(Sort.Direction.DESC, "id"),
+            Sort.by("marca"),
+            Sort.by(Sort.Order.asc("marca"), Sort.Order.desc("annoProduzione")),
+            Sort.by(Sort.Order.desc("modello"), Sort.Order.asc("prezzo")),
+            Sort.by("stato"),
+            Sort.by(Sort.Direction.DESC, "annoProduzione"));
+
+    private static final List<BigDecimal> PREZZO_LIMITS = List.of(
+            new BigDecimal("10000"), new BigDecimal("20000.005"), new BigDecimal("20000.01"), new BigDecimal("40000"));
+
+    @Autowired
+    private AutoSearchIndex autoSearchIndex;
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @Autowired
+    private AutoMapper autoMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockitoSpyBean
+    private CatalogVersion catalogVersion;
+
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp() {
+        List<Auto> autos = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            autos.add(randomAuto());
+        }
+        autoRepository.saveAll(autos);
+    }
+
+    @AfterEach
+    void tearDown() {
+        autoRepository.deleteAll();
+    }
+
+    @Test
+    void rebuild_ShouldLoadWholeCatalog() {
+        autoSearchIndex.rebuild();
+
+        assertEquals(300, autoSearchIndex.size());
+        assertTrue(autoSearchIndex.search(new AutoSearchCriteriaDTO(), PageRequest.of(0, 10)).isPresent());
+    }
+
+    @Test
+    void search_ShouldFallBackToDatabaseForUnsupportedSort() {
+        autoSearchIndex.rebuild();
+
+        assertTrue(autoSearchIndex.search(new AutoSearchCriteriaDTO(),
+                PageRequest.of(0, 10, Sort.by("marcaNormalizzata"))).isEmpty());
+        assertTrue(autoSearchIndex.search(new AutoSearchCriteriaDTO(),
+                PageRequest.of(0, 10, Sort.by(Sort.Order.asc("marca").ignoreCase()))).isEmpty());
+    }
+
+    @Test
+    void search_ShouldMatchDatabaseResults() {
+        autoSearchIndex.rebuild();
+
+        assertSameResults();
+    }
+
+    /**
+     * Verifica che creazioni, aggiornamenti (anche massivi, senza lo stato delle auto) ed eliminazioni
+     * confermati vengano applicati all'indice.
+     */
+    @Test
+    void onAutoChanged_ShouldKeepIndexAlignedWithDatabase() {
+        autoSearchIndex.rebuild();
+
+        List<Auto> created = autoRepository.saveAll(List.of(randomAuto(), randomAuto(), randomAuto()));
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.created(created.stream().map(autoMapper::toResponseDTO).toList()));
+
+        Auto updated = autoRepository.findAll().get(10);
+        updated.setMarca("Lancia");
+        updated.setPrezzo(new BigDecimal("1.00"));
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.updated(autoMapper.toResponseDTO(autoRepository.save(updated))));
+
+        List<Auto> repriced = autoRepository.findAll().subList(20, 60);
+        repriced.forEach(auto -> {
+            auto.setPrezzo(auto.getPrezzo().add(new BigDecimal("0.01")));
+            auto.setStato(StatoAuto.VENDUTA);
+        });
+        autoRepository.saveAll(repriced);
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.updated(repriced.stream().map(Auto::getId).toList()));
+
+        for (Auto deleted : autoRepository.findAll().subList(100, 130)) {
+            autoRepository.deleteById(deleted.getId());
+            autoSearchIndex.onAutoChanged(AutoChangedEvent.deleted(deleted.getId()));
+        }
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.created(
+                autoRepository.saveAll(List.of(randomAuto(), randomAuto())).stream().map(autoMapper::toResponseDTO).toList()));
+
+        assertEquals(autoRepository.count(), autoSearchIndex.size());
+        assertSameResults();
+    }
+
+    /**
+     * Verifica che un evento applicato dopo quello di una modifica successiva, come accade ai listener
+     * di transazioni concorrenti, non riporti nell'indice lo stato precedente di un'auto né un'auto eliminata.
+     */
+    @Test
+    void onAutoChanged_ShouldIgnoreOutOfOrderEvents() {
+        autoSearchIndex.rebuild();
+        List<Auto> autos = autoRepository.findAll();
+
+        Auto updated = autos.get(10);
+        AutoResponseDTO stale = autoMapper.toResponseDTO(updated);
+        updated.setMarca("Lancia");
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.updated(autoMapper.toResponseDTO(autoRepository.save(updated))));
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.updated(stale));
+
+        Auto deleted = autos.get(20);
+        autoRepository.deleteById(deleted.getId());
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.deleted(deleted.getId()));
+        autoSearchIndex.onAutoChanged(AutoChangedEvent.updated(autoMapper.toResponseDTO(deleted)));
+
+        assertEquals(autoRepository.count(), autoSearchIndex.size());
+        assertSameResults();
+    }
+
+    /**
+     * Verifica che dopo il commit l'indice venga aggiornato prima che {@link CatalogVersion} incrementi
+     * la generazione, così una ricerca con la nuova generazione non legge l'indice precedente.
+     */
+    @Test
+    void onAutoChanged_ShouldRunBeforeCatalogVersion() {
+        autoSearchIndex.rebuild();
+        List<Integer> sizesAtNewGeneration = new ArrayList<>();
+        doAnswer(invocation -> {
+            sizesAtNewGeneration.add(autoSearchIndex.size());
+            return invocation.callRealMethod();
+        }).when(catalogVersion).onAutoChanged(any());
+
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(
+                AutoChangedEvent.created(autoMapper.toResponseDTO(autoRepository.save(randomAuto())))));
+
+        assertEquals(List.of(301), sizesAtNewGeneration);
+    }
+
+    private void assertSameResults() {
+        List<AutoSearchCriteriaDTO> criteria = new ArrayList<>(List.of(
+                new AutoSearchCriteriaDTO(),
+                new AutoSearchCriteriaDTO("fiat", null, null, null, null, null, null),
+                new AutoSearchCriteriaDTO("FIAT", "PANDA", null, null, null, null, StatoAuto.DISPONIBILE),
+                new AutoSearchCriteriaDTO("Lancia", null, null, null, null, null, null),
+                new AutoSearchCriteriaDTO("Tesla", null, null, null, null, null, null),
+                new AutoSearchCriteriaDTO(null, null, 2010, 2015, null, null, null),
+                new AutoSearchCriteriaDTO(null, null, null, null,
+                        new BigDecimal("10000.005"), new BigDecimal("40000.999"), StatoAuto.VENDUTA),
+                new AutoSearchCriteriaDTO(null, null, null, null, new BigDecimal("50000"), new BigDecimal("40000"), null)));
+        for (int i = 0; i < 20; i++) {
+            criteria.add(randomCriteria());
+        }
+        for (AutoSearchCriteriaDTO criterion : criteria) {
+            assertSameFacets(criterion, PREZZO_LIMITS);
+            for (Sort sort : SORTS) {
+                for (int page = 0; page < 3; page++) {
+                    assertSameResults(criterion, PageRequest.of(page, 7, sort));
+                }
+                assertSameResults(criterion, PageRequest.of(0, 1000, sort));
+            }
+        }
+    }
+
+    /**
+     * Con un ordinamento le pagine devono coincidere esattamente; senza ordinamento il database
+     * non garantisce l'ordine delle righe, quindi si confrontano totale e contenuto di una pagina unica.
+     */
+    private void assertSameResults(AutoSearchCriteriaDTO criteria, Pageable pageable) {
+        Page<AutoResponseDTO> expected = autoRepository.searchResponses(criteria, pageable);
+        Optional<Page<AutoResponseDTO>> actual = autoSearchIndex.search(criteria, pageable);
+
+        assertTrue(actual.isPresent());
+        String message = criteria + " " + pageable;
+        assertEquals(expected.getTotalElements(), actual.get().getTotalElements(), message);
+        if (pageable.getSort().isSorted()) {
+            assertEquals(expected.getContent(), actual.get().getContent(), message);
+        } else if (pageable.getPageSize() >= expected.getTotalElements()) {
+            assertEquals(new HashSet<>(expected.getContent()), new HashSet<>(actual.get().getContent()), message);
+        } else {
+            assertEquals(expected.getNumberOfElements(), actual.get().getNumberOfElements(), message);
+        }
+    }
+
+    /**
+     * L'indice restituisce un gruppo per ogni variante della marca, il database uno per marca normalizzata:
+     * si confrontano i conteggi sommati per marca in minuscolo e stato.
+     */
+    private void assertSameFacets(AutoSearchCriteriaDTO criteria, List<BigDecimal> prezzoLimits) {
+        Optional<List<FacetGroup>> actual = autoSearchIndex.facets(criteria, prezzoLimits);
+
+        assertTrue(actual.isPresent());
+        assertEquals(sum(autoRepository.facets(criteria, prezzoLimits)), sum(actual.get()), criteria.toString());
+    }
+
+    private static Map<String, List<Long>> sum(List<FacetGroup> groups) {
+        Map<String, List<Long>> counts = new HashMap<>();
+        for (FacetGroup group : groups) {
+            List<Long> values = new ArrayList<>();
+            values.add(group.count());
+            Arrays.stream(group.prezzoBuckets()).forEach(values::add);
+            counts.merge(group.marca().toLowerCase() + "|" + group.stato(), values, (first, second) -> {
+                List<Long> merged = new ArrayList<>(first);
+                for (int i = 0; i < merged.size(); i++) {
+                    merged.set(i, merged.get(i) + second.get(i));
+                }
+                return merged;
+            });
+        }
+        return counts;
+    }
+
+    private Auto randomAuto() {
+        return new Auto(null,
+                MARCHE[random.nextInt(MARCHE.length)],
+                MODELLI[random.nextInt(MODELLI.length)],
+                2000 + random.nextInt(25),
+                BigDecimal.valueOf(500_000L + random.nextInt(50) * 100_000L + random.nextInt(3) * 99L, 2),
+                random.nextInt(3) == 0 ? StatoAuto.VENDUTA : StatoAuto.DISPONIBILE);
+    }
+
+    private AutoSearchCriteriaDTO randomCriteria() {
+        Integer annoMin = random.nextBoolean() ? 2000 + random.nextInt(25) : null;
+        BigDecimal prezzoMin = random.nextBoolean() ? BigDecimal.valueOf(500_000L + random.nextInt(5_000_000), 2) : null;
+        return new AutoSearchCriteriaDTO(
+                random.nextInt(3) == 0 ? MARCHE[random.nextInt(MARCHE.length)].toUpperCase() : null,
+                random.nextInt(3) == 0 ? MODELLI[random.nextInt(MODELLI.length)] : null,
+                annoMin,
+                annoMin != null && random.nextBoolean() ? annoMin + random.nextInt(10) : null,
+                prezzoMin,
+                prezzoMin != null && random.nextBoolean() ? prezzoMin.add(BigDecimal.valueOf(random.nextInt(2_000_000), 2)) : null,
+                random.nextInt(3) == 0 ? StatoAuto.values()[random.nextInt(StatoAuto.values().length)] : null);
+    }
+}
@@ -0,0 +1,260 @@
+package com.autoxy.catalogo_auto.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.autoxy.catalogo_auto.Config.CacheConfig;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchPageDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoFacetsRepository;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe di test per le cache di {@link AutoServiceImpl}.
+ * Verifica che le letture ripetute di findById e search non interroghino il repository
+ * e che le scritture mantengano le cache allineate.
+ *
+ * @see CacheConfig
+ */
+@SpringBootTest(classes = {CacheConfig.class, AutoServiceImpl.class, AutoMapper.class,
+        AutoSearchKeyGenerator.class, CatalogVersion.class, AutoCache.class})
+public class AutoServiceCacheTest {
+
+    @MockitoBean
+    private AutoRepository autoRepository;
+
+    @MockitoBean
+    private AutoSearchIndex autoSearchIndex;
+
+    @Autowired
+    private AutoService autoService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Auto auto;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.AUTO_CACHE).clear();
+        cacheManager.getCache(CacheConfig.SEARCH_CACHE).clear();
+        cacheManager.getCache(CacheConfig.FACETS_CACHE).clear();
+        auto = new Auto(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), StatoAuto.DISPONIBILE);
+        when(autoRepository.findById(1L)).thenReturn(Optional.of(auto));
+    }
+
+    @Test
+    void findById_ShouldHitRepositoryOnlyOnce() {
+        CacheStats before = stats();
+
+        AutoResponseDTO first = autoService.findById(1L);
+        AutoResponseDTO second = autoService.findById(1L);
+
+        assertEquals(first, second);
+        verify(autoRepository, times(1)).findById(1L);
+        CacheStats stats = stats().minus(before);
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    void update_ShouldReplaceCachedValue() {
+        autoService.findById(1L);
+        when(autoRepository.saveAndFlush(auto)).thenReturn(auto);
+
+        autoService.update(1L, new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(4500), "VENDUTA"), null);
+        AutoResponseDTO result = autoService.findById(1L);
+
+        assertEquals(BigDecimal.valueOf(4500), result.getPrezzo());
+        assertEquals("VENDUTA", result.getStato());
+    }
+
+    @Test
+    void deleteById_ShouldEvictCachedValue() {
+        autoService.findById(1L);
+        when(autoRepository.deleteAutoById(1L)).thenReturn(1);
+
+        autoService.deleteById(1L);
+        when(autoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> autoService.findById(1L));
+    }
+
+    @Test
+    void updateStato_ShouldEvictCachedValues() {
+        autoService.findById(1L);
+        when(autoRepository.updateStatoByIdIn(List.of(1L), StatoAuto.VENDUTA)).thenReturn(1);
+
+        autoService.updateStato(new AutoBulkStatoRequestDTO(List.of(1L), "VENDUTA"));
+        autoService.findById(1L);
+
+        verify(autoRepository, times(2)).findById(1L);
+    }
+
+    /**
+     * Una lettura che ha caricato l'auto prima di un aggiornamento concorrente non rimette in cache
+     * il valore vecchio dopo quello aggiornato.
+     */
+    @Test
+    void findById_ConcurrentUpdate_ShouldKeepNewerVersion() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        auto.setVersion(0L);
+        when(autoRepository.findById(1L))
+                .thenAnswer(invocation -> staleRead(loaded, written))
+                .thenReturn(Optional.of(auto));
+        when(autoRepository.saveAndFlush(auto)).thenAnswer(invocation -> {
+            auto.setVersion(1L);
+            return auto;
+        });
+
+        CompletableFuture<AutoResponseDTO> read = CompletableFuture.supplyAsync(() -> autoService.findById(1L));
+        loaded.await();
+        autoService.update(1L, new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(4500), "VENDUTA"), null);
+        written.countDown();
+
+        assertEquals(0L, read.get(5, TimeUnit.SECONDS).getVersion());
+        AutoResponseDTO result = autoService.findById(1L);
+        assertEquals(1L, result.getVersion());
+        assertEquals("VENDUTA", result.getStato());
+        verify(autoRepository, times(2)).findById(1L);
+    }
+
+    /**
+     * Una lettura che ha caricato l'auto prima di un'eliminazione concorrente non la rimette in cache.
+     */
+    @Test
+    void findById_ConcurrentDelete_ShouldNotCacheDeletedAuto() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(autoRepository.findById(1L))
+                .thenAnswer(invocation -> staleRead(loaded, written))
+                .thenReturn(Optional.empty());
+        when(autoRepository.deleteAutoById(1L)).thenReturn(1);
+
+        CompletableFuture<AutoResponseDTO> read = CompletableFuture.supplyAsync(() -> autoService.findById(1L));
+        loaded.await();
+        autoService.deleteById(1L);
+        written.countDown();
+
+        assertNotNull(read.get(5, TimeUnit.SECONDS));
+        assertThrows(NoSuchElementException.class, () -> autoService.findById(1L));
+    }
+
+    @Test
+    void search_ShouldReuseResultForEquivalentFilters() {
+        Pageable pageable = PageRequest.of(0, 20);
+        when(autoRepository.searchResponses(any(AutoSearchCriteriaDTO.class), eq(pageable), eq(AutoResponseDTO.FIELDS)))
+                .thenReturn(new PageImpl<>(List.of(autoResponseDTO()), pageable, 1));
+
+        autoService.search(new AutoSearchCriteriaDTO("Fiat", "Punto", 2005, null,
+                new BigDecimal("10000"), null, StatoAuto.DISPONIBILE), pageable, ConteggioTotale.ESATTO, AutoResponseDTO.FIELDS);
+        autoService.search(new AutoSearchCriteriaDTO("FIAT", "punto", 2005, null,
+                new BigDecimal("10000.00"), null, StatoAuto.DISPONIBILE), pageable, ConteggioTotale.ESATTO, AutoResponseDTO.FIELDS);
+
+        verify(autoRepository, times(1)).searchResponses(any(), any(), any());
+    }
+
+    @Test
+    void save_ShouldInvalidateSearchResults() {
+        Pageable pageable = PageRequest.of(0, 20);
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        when(autoRepository.searchResponses(criteria, pageable, AutoResponseDTO.FIELDS))
+                .thenReturn(new PageImpl<>(List.of(autoResponseDTO()), pageable, 1));
+        when(autoRepository.save(any(Auto.class))).thenReturn(auto);
+
+        autoService.search(criteria, pageable, ConteggioTotale.ESATTO, AutoResponseDTO.FIELDS);
+        autoService.save(new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE"));
+        autoService.search(criteria, pageable, ConteggioTotale.ESATTO, AutoResponseDTO.FIELDS);
+
+        verify(autoRepository, times(2)).searchResponses(criteria, pageable, AutoResponseDTO.FIELDS);
+    }
+
+    /**
+     * Il totale stimato viene contato una volta per combinazione di filtri e riusato anche dopo una scrittura,
+     * mentre le pagine vengono rilette.
+     */
+    @Test
+    void search_EstimatedCount_ShouldReuseTotalAcrossWrites() {
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO(null, null, null, null, null, null, StatoAuto.DISPONIBILE);
+        when(autoRepository.sliceResponses(eq(criteria), any(), eq(AutoResponseDTO.FIELDS)))
+                .thenAnswer(invocation -> new SliceImpl<>(List.of(autoResponseDTO()), invocation.getArgument(1), true));
+        when(autoRepository.countResponses(criteria)).thenReturn(50L);
+        when(autoRepository.save(any(Auto.class))).thenReturn(auto);
+
+        Page<AutoResponseDTO> first = autoService.search(criteria, PageRequest.of(0, 1), ConteggioTotale.STIMATO, AutoResponseDTO.FIELDS);
+        autoService.save(new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE"));
+        Page<AutoResponseDTO> second = autoService.search(criteria, PageRequest.of(1, 1), ConteggioTotale.STIMATO, AutoResponseDTO.FIELDS);
+
+        assertEquals(50, first.getTotalElements());
+        assertEquals(50, second.getTotalElements());
+        assertTrue(((AutoSearchPageDTO) second).isTotalApproximate());
+        verify(autoRepository, times(2)).sliceResponses(eq(criteria), any(), eq(AutoResponseDTO.FIELDS));
+        verify(autoRepository, times(1)).countResponses(criteria);
+        verify(autoRepository, never()).searchResponses(any(), any(), any());
+    }
+
+    @Test
+    void facets_ShouldBeCachedUntilNextWrite() {
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        List<BigDecimal> prezzoLimits = List.of(new BigDecimal("10000"));
+        when(autoRepository.facets(eq(criteria), anyList()))
+                .thenReturn(List.of(new AutoFacetsRepository.FacetGroup("Fiat", StatoAuto.DISPONIBILE, 1, new long[]{1, 0})));
+        when(autoRepository.save(any(Auto.class))).thenReturn(auto);
+
+        autoService.facets(criteria, prezzoLimits);
+        autoService.facets(criteria, List.of(new BigDecimal("10000.00")));
+        autoService.save(new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE"));
+        autoService.facets(criteria, prezzoLimits);
+
+        verify(autoRepository, times(2)).facets(eq(criteria), anyList());
+    }
+
+    /**
+     * Legge l'auto com'è ora, poi attende la scrittura concorrente prima di restituirla.
+     */
+    private Optional<Auto> staleRead(CountDownLatch loaded, CountDownLatch written) throws InterruptedException {
+        Auto stale = new Auto(auto.getId(), auto.getMarca(), auto.getModello(), auto.getAnnoProduzione(),
+                auto.getPrezzo(), auto.getStato());
+        stale.setVersion(auto.getVersion());
+        loaded.countDown();
+        written.await();
+        return Optional.of(stale);
+    }
+
+    private AutoResponseDTO autoResponseDTO() {
+        return new AutoMapper().toResponseDTO(auto);
+    }
+
+    private CacheStats stats() {
+        return ((CaffeineCache) cacheManager.getCache(CacheConfig.AUTO_CACHE)).getNativeCache().stats();
+    }
+}
@@ -0,0 +1,104 @@
+package com.autoxy.catalogo_auto.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.autoxy.catalogo_auto.DTO.AutoKeysetPageDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
+import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la paginazione keyset di {@link AutoServiceImpl#searchKeyset}.
+ * Usa un database H2 in memoria per verificare le query generate da Spring Data.
+ *
+ * @see AutoServiceImpl
+ * @see KeysetCursor
+ */
+@DataJpaTest
+@Import({AutoServiceImpl.class, AutoMapper.class, AutoSearchIndex.class, AutoCache.class})
+public class AutoServiceImplKeysetTest {
+
+    @Autowired
+    private AutoRepository autoRepository;
+
+    @Autowired
+    private AutoServiceImpl autoService;
+
+    /**
+     * Popola il catalogo con cinque auto, due delle quali con lo stesso prezzo
+     * per verificare lo spareggio sull'ID.
+     */
+    @BeforeEach
+    void setUp() {
+        autoRepository.saveAll(List.of(
+                new Auto(null, "Fiat", "Panda", 2020, new BigDecimal("15000.00"), StatoAuto.DISPONIBILE),
+                new Auto(null, "Fiat", "500", 2021, new BigDecimal("12000.00"), StatoAuto.DISPONIBILE),
+                new Auto(null, "Ford", "Focus", 2019, new BigDecimal("18000.00"), StatoAuto.VENDUTA),
+                new Auto(null, "FIAT", "Tipo", 2018, new BigDecimal("15000.00"), StatoAuto.DISPONIBILE),
+                new Auto(null, "Fiat", "Punto", 2010, new BigDecimal("5000.00"), StatoAuto.VENDUTA)));
+    }
+
+    /**
+     * Verifica che, seguendo i cursori, vengano restituite tutte le auto filtrate
+     * nell'ordine richiesto, senza duplicati né salti.
+     */
+    @Test
+    void searchKeyset_ShouldWalkAllPagesInOrder() {
+        List<String> modelli = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AutoKeysetPageDTO page = autoService.searchKeyset(marca("fiat"),
+                    "prezzo", Sort.Direction.DESC, 1, cursor);
+            page.getContent().stream().map(AutoResponseDTO::getModello).forEach(modelli::add);
+            cursor = page.getNextCursor();
+            assertEquals(page.isHasNext(), cursor != null);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of("Panda", "Tipo", "500", "Punto"), modelli);
+        assertEquals(4, pages);
+    }
+
+    /**
+     * Verifica che un cursore non valido venga rifiutato con {@link InvalidQueryParameterException}.
+     */
+    @Test
+    void searchKeyset_ShouldRejectInvalidCursor() {
+        assertThrows(InvalidQueryParameterException.class, () -> autoService.searchKeyset(new AutoSearchCriteriaDTO(),
+                "id", Sort.Direction.ASC, 2, "non-un-cursore"));
+        assertThrows(InvalidQueryParameterException.class, () -> autoService.searchKeyset(new AutoSearchCriteriaDTO(),
+                "stato", Sort.Direction.ASC, 2, null));
+    }
+
+    /**
+     * Verifica che una ricerca senza risultati sollevi {@link NoSuchElementException},
+     * come la ricerca paginata classica.
+     */
+    @Test
+    void searchKeyset_ShouldThrowWhenNothingMatches() {
+        assertThrows(NoSuchElementException.class, () -> autoService.searchKeyset(marca("Lancia"),
+                "id", Sort.Direction.ASC, 2, null));
+    }
+
+    private static AutoSearchCriteriaDTO marca(String marca) {
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        criteria.setMarca(marca);
+        return criteria;
+    }
+}
@@ -3,21 +3,42 @@ package com.autoxy.catalogo_auto.Service;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
+import com.autoxy.catalogo_auto.DTO.AutoBulkResultDTO;
+import com.autoxy.catalogo_auto.DTO.AutoBulkStatoRequestDTO;
+import com.autoxy.catalogo_auto.DTO.AutoFacetsDTO;
+import com.autoxy.catalogo_auto.DTO.AutoPrezzoBucketDTO;
+import com.autoxy.catalogo_auto.DTO.AutoRepriceRequestDTO;
 import com.autoxy.catalogo_auto.DTO.AutoRequestDTO;
 import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchPageDTO;
+import com.autoxy.catalogo_auto.Enum.ConteggioTotale;
 import com.autoxy.catalogo_auto.Enum.StatoAuto;
+import com.autoxy.catalogo_auto.Event.AutoChangedEvent;
+import com.autoxy.catalogo_auto.Exception.InvalidQueryParameterException;
+import com.autoxy.catalogo_auto.Mapper.AutoMapper;
 import com.autoxy.catalogo_auto.Model.Auto;
+import com.autoxy.catalogo_auto.Repository.AutoFacetsRepository.FacetGroup;
 import com.autoxy.catalogo_auto.Repository.AutoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,11 +55,14 @@ import static org.mockito.Mockito.*;
  *   <li>Il salvataggio di una nuova auto</li>
  *   <li>L'aggiornamento di un'auto esistente</li>
  *   <li>L'eliminazione di un'auto</li>
+ *   <li>La lettura a blocchi dell'intero catalogo</li>
+ *   <li>Gli aggiornamenti massivi di stato e prezzo</li>
+ *   <li>La ricerca senza query di conteggio</li>
  * </ul>
  *
  * @see AutoServiceImpl
  * @see AutoRepository
- * @see ModelMapper
+ * @see AutoMapper
  */
 @ExtendWith(MockitoExtension.class)
 public class AutoServiceImplTest {
@@ -46,8 +70,17 @@ public class AutoServiceImplTest {
     @Mock
     private AutoRepository autoRepository;
 
+    @Spy
+    private AutoMapper autoMapper = new AutoMapper();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Mock
-    private ModelMapper modelMapper;
+    private AutoSearchIndex autoSearchIndex;
+
+    @Spy
+    private AutoCache autoCache = new AutoCache();
 
     @InjectMocks
     private AutoServiceImpl autoService;
@@ -63,38 +96,37 @@ public class AutoServiceImplTest {
     @BeforeEach
     void setUp() {
         auto = new Auto(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), StatoAuto.DISPONIBILE);
+        auto.setVersion(0L);
         autoRequestDTO = new AutoRequestDTO("Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE");
-        autoResponseDTO = new AutoResponseDTO(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE");
+        autoResponseDTO = new AutoResponseDTO(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(5000), "DISPONIBILE", 0L);
     }
 
     /**
-     * Verifica che il metodo {@link AutoServiceImpl#findAll()} restituisca una lista non vuota
+     * Verifica che il metodo {@link AutoServiceImpl#findAll} restituisca una lista non vuota
      * di {@link AutoResponseDTO} quando sono presenti auto nel catalogo.
      *
      * <p>Scenario:
      * <ol>
-     *   <li>Mock del repository per restituire una lista con un'auto</li>
-     *   <li>Mock del ModelMapper per convertire l'entità in DTO</li>
+     *   <li>Mock del repository per restituire una lista con un'auto, già letta come DTO</li>
      *   <li>Verifica che la lista restituita abbia dimensione 1</li>
-     *   <li>Verifica che i metodi del repository e del ModelMapper siano chiamati correttamente</li>
+     *   <li>Verifica che il repository sia chiamato e che il mapper non serva</li>
      * </ol>
      */
     @Test
     void findAll_ShouldReturnListOfAutoResponseDTO() {
         // Given
-        when(autoRepository.findAll()).thenReturn(Collections.singletonList(auto));
-        when(modelMapper.map(auto, AutoResponseDTO.class)).thenReturn(autoResponseDTO);
+        when(autoRepository.findAllResponses()).thenReturn(Collections.singletonList(autoResponseDTO));
 
         // When
-        List<AutoResponseDTO> result = autoService.findAll();
+        List<AutoResponseDTO> result = autoService.findAll(AutoResponseDTO.FIELDS);
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(autoResponseDTO, result.get(0));
 
-        verify(autoRepository, times(1)).findAll();
-        verify(modelMapper, times(1)).map(auto, AutoResponseDTO.class);
+        verify(autoRepository, times(1)).findAllResponses();
+        verifyNoInteractions(autoMapper);
     }
 
     /**
@@ -105,14 +137,13 @@ public class AutoServiceImplTest {
      * <ol>
      *   <li>Mock del repository per restituire un'auto per l'ID 1L</li>
      *   <li>Verifica che il DTO restituito corrisponda all'auto mockata</li>
-     *   <li>Verifica che i metodi del repository e del ModelMapper siano chiamati correttamente</li>
+     *   <li>Verifica che i metodi del repository e del mapper siano chiamati correttamente</li>
      * </ol>
      */
     @Test
     void findById_ShouldReturnAutoResponseDTO() {
         // Given
         when(autoRepository.findById(1L)).thenReturn(Optional.of(auto));
-        when(modelMapper.map(auto, AutoResponseDTO.class)).thenReturn(autoResponseDTO);
 
         // When
         AutoResponseDTO result = autoService.findById(1L);
@@ -122,7 +153,7 @@ public class AutoServiceImplTest {
         assertEquals(autoResponseDTO, result);
 
         verify(autoRepository, times(1)).findById(1L);
-        verify(modelMapper, times(1)).map(auto, AutoResponseDTO.class);
+        verify(autoMapper, times(1)).toResponseDTO(auto);
     }
 
     /**
@@ -131,18 +162,15 @@ public class AutoServiceImplTest {
      *
      * <p>Scenario:
      * <ol>
-     *   <li>Mock del ModelMapper per convertire il DTO in entità</li>
-     *   <li>Mock del repository per salvare l'entità</li>
+     *   <li>Mock del repository per salvare l'entità assegnando l'ID</li>
      *   <li>Verifica che il DTO restituito corrisponda all'auto mockata</li>
-     *   <li>Verifica che i metodi del repository e del ModelMapper siano chiamati correttamente</li>
+     *   <li>Verifica che i metodi del repository e del mapper siano chiamati correttamente</li>
      * </ol>
      */
     @Test
     void save_ShouldReturnSavedAutoResponseDTO() {
         // Given
-        when(modelMapper.map(autoRequestDTO, Auto.class)).thenReturn(auto);
-        when(autoRepository.save(auto)).thenReturn(auto);
-        when(modelMapper.map(auto, AutoResponseDTO.class)).thenReturn(autoResponseDTO);
+        when(autoRepository.save(any(Auto.class))).thenReturn(auto);
 
         // When
         AutoResponseDTO result = autoService.save(autoRequestDTO);
@@ -151,9 +179,10 @@ public class AutoServiceImplTest {
         assertNotNull(result);
         assertEquals(autoResponseDTO, result);
 
-        verify(modelMapper, times(1)).map(autoRequestDTO, Auto.class);
-        verify(autoRepository, times(1)).save(auto);
-        verify(modelMapper, times(1)).map(auto, AutoResponseDTO.class);
+        verify(autoMapper, times(1)).toEntity(autoRequestDTO);
+        verify(autoRepository, times(1)).save(any(Auto.class));
+        verify(autoMapper, times(1)).toResponseDTO(auto);
+        verify(eventPublisher, times(1)).publishEvent(AutoChangedEvent.created(autoResponseDTO));
     }
 
     /**
@@ -163,41 +192,57 @@ public class AutoServiceImplTest {
      * <p>Scenario:
      * <ol>
      *   <li>Mock del repository per trovare e salvare l'auto</li>
-     *   <li>Mock del ModelMapper per aggiornare l'entità e convertirla in DTO</li>
-     *   <li>Verifica che il DTO restituito corrisponda all'auto mockata</li>
-     *   <li>Verifica che i metodi del repository e del ModelMapper siano chiamati correttamente</li>
+     *   <li>Verifica che l'entità venga aggiornata con i nuovi valori</li>
+     *   <li>Verifica che il DTO restituito corrisponda ai nuovi valori</li>
+     *   <li>Verifica che i metodi del repository e del mapper siano chiamati correttamente</li>
      * </ol>
      */
     @Test
     void update_ShouldReturnUpdatedAutoResponseDTO() {
         // Given
         when(autoRepository.findById(1L)).thenReturn(Optional.of(auto));
-        when(autoRepository.save(auto)).thenReturn(auto);
-
-        doAnswer(invocation -> {
-            AutoRequestDTO source = invocation.getArgument(0);
-            Auto destination = invocation.getArgument(1);
-            destination.setMarca(source.getMarca());
-            destination.setModello(source.getModello());
-            destination.setAnnoProduzione(source.getAnnoProduzione());
-            destination.setPrezzo(source.getPrezzo());
-            destination.setStato(StatoAuto.valueOf(source.getStato()));
-            return null;
-        }).when(modelMapper).map(eq(autoRequestDTO), eq(auto));
-
-        when(modelMapper.map(auto, AutoResponseDTO.class)).thenReturn(autoResponseDTO);
+        when(autoRepository.saveAndFlush(auto)).thenAnswer(invocation -> {
+            auto.setVersion(auto.getVersion() + 1);
+            return auto;
+        });
+        autoRequestDTO.setPrezzo(BigDecimal.valueOf(4500));
+        autoRequestDTO.setStato("VENDUTA");
 
         // When
-        AutoResponseDTO result = autoService.update(1L, autoRequestDTO);
+        AutoResponseDTO result = autoService.update(1L, autoRequestDTO, null);
 
         // Then
         assertNotNull(result);
-        assertEquals(autoResponseDTO, result);
+        assertEquals(new AutoResponseDTO(1L, "Fiat", "Punto", 2010, BigDecimal.valueOf(4500), "VENDUTA", 1L), result);
+        assertEquals(StatoAuto.VENDUTA, auto.getStato());
 
         verify(autoRepository, times(1)).findById(1L);
-        verify(autoRepository, times(1)).save(auto);
-        verify(modelMapper, times(1)).map(autoRequestDTO, auto);
-        verify(modelMapper, times(1)).map(auto, AutoResponseDTO.class);
+        verify(autoRepository, times(1)).saveAndFlush(auto);
+        verify(autoMapper, times(1)).updateEntity(autoRequestDTO, auto);
+        verify(autoMapper, times(1)).toResponseDTO(auto);
+        verify(eventPublisher, times(1)).publishEvent(AutoChangedEvent.updated(result));
+    }
+
+    /**
+     * Verifica che un aggiornamento condizionato venga applicato solo se la versione attuale
+     * è tra quelle attese, senza modificare l'entità né pubblicare eventi in caso contrario.
+     */
+    @Test
+    void update_ShouldRejectUnexpectedVersion() {
+        // Given
+        auto.setVersion(4L);
+        when(autoRepository.findById(1L)).thenReturn(Optional.of(auto));
+        autoRequestDTO.setPrezzo(BigDecimal.valueOf(4500));
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> autoService.update(1L, autoRequestDTO, List.of(2L, 3L)));
+        assertEquals(BigDecimal.valueOf(5000), auto.getPrezzo());
+        verify(autoRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+
+        when(autoRepository.saveAndFlush(auto)).thenReturn(auto);
+        assertEquals(BigDecimal.valueOf(4500), autoService.update(1L, autoRequestDTO, List.of(3L, 4L)).getPrezzo());
     }
 
     /**
@@ -208,7 +253,7 @@ public class AutoServiceImplTest {
      * <ol>
      *   <li>Mock del repository per restituire Optional.empty()</li>
      *   <li>Verifica che venga sollevata l'eccezione</li>
-     *   <li>Verifica che il ModelMapper non venga chiamato</li>
+     *   <li>Verifica che il mapper non venga chiamato</li>
      * </ol>
      *
      * @throws NoSuchElementException quando l'ID non esiste
@@ -222,7 +267,7 @@ public class AutoServiceImplTest {
         assertThrows(NoSuchElementException.class, () -> autoService.findById(1L));
 
         verify(autoRepository, times(1)).findById(1L);
-        verify(modelMapper, never()).map(any(), any());
+        verify(autoMapper, never()).toResponseDTO(any());
     }
 
     /**
@@ -232,18 +277,246 @@ public class AutoServiceImplTest {
      * <p>Scenario:
      * <ol>
      *   <li>Mock del repository per eliminare l'auto con ID 1L</li>
-     *   <li>Verifica che il metodo deleteById del repository sia chiamato correttamente</li>
+     *   <li>Verifica che il metodo deleteAutoById del repository sia chiamato correttamente</li>
      * </ol>
      */
     @Test
     void deleteById_ShouldDeleteAuto() {
         // Given
-        doNothing().when(autoRepository).deleteById(1L);
+        when(autoRepository.deleteAutoById(1L)).thenReturn(1);
+
+        // When
+        autoService.deleteById(1L);
+
+        // Then
+        verify(autoRepository, times(1)).deleteAutoById(1L);
+        verify(eventPublisher, times(1)).publishEvent(AutoChangedEvent.deleted(1L));
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#deleteById(Long)} non sollevi eccezioni
+     * e non pubblichi eventi quando l'auto non esiste.
+     */
+    @Test
+    void deleteById_ShouldIgnoreMissingAuto() {
+        // Given
+        when(autoRepository.deleteAutoById(1L)).thenReturn(0);
 
         // When
         autoService.deleteById(1L);
 
         // Then
-        verify(autoRepository, times(1)).deleteById(1L);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#streamAll()} legga il catalogo a blocchi,
+     * usando l'ultimo ID del blocco precedente come cursore e fermandosi al primo blocco incompleto.
+     *
+     * <p>Scenario:
+     * <ol>
+     *   <li>Dimensione del blocco pari a 1, due auto nel catalogo</li>
+     *   <li>Verifica che lo stream restituisca entrambe le auto nell'ordine</li>
+     *   <li>Verifica che il repository venga interrogato con il cursore corretto</li>
+     * </ol>
+     */
+    @Test
+    void streamAll_ShouldReadCatalogInChunks() {
+        // Given
+        autoService.exportChunkSize = 1;
+        AutoResponseDTO secondDTO = new AutoResponseDTO(2L, "Ford", "Focus", 2019, BigDecimal.valueOf(18000), "VENDUTA", 0L);
+        when(autoRepository.findResponsesByIdGreaterThan(0L, Limit.of(1))).thenReturn(List.of(autoResponseDTO));
+        when(autoRepository.findResponsesByIdGreaterThan(1L, Limit.of(1))).thenReturn(List.of(secondDTO));
+        when(autoRepository.findResponsesByIdGreaterThan(2L, Limit.of(1))).thenReturn(List.of());
+
+        // When
+        List<AutoResponseDTO> result = autoService.streamAll().toList();
+
+        // Then
+        assertEquals(List.of(autoResponseDTO, secondDTO), result);
+        verify(autoRepository, times(3)).findResponsesByIdGreaterThan(any(), any());
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#updateStato} esegua un unico aggiornamento
+     * per tutti gli ID (senza duplicati) e pubblichi l'evento con gli ID modificati.
+     */
+    @Test
+    void updateStato_ShouldUpdateAllIdsWithOneStatement() {
+        // Given
+        when(autoRepository.updateStatoByIdIn(List.of(1L, 2L), StatoAuto.VENDUTA)).thenReturn(2);
+
+        // When
+        AutoBulkResultDTO result = autoService.updateStato(new AutoBulkStatoRequestDTO(List.of(1L, 2L, 1L), "VENDUTA"));
+
+        // Then
+        assertEquals(2, result.getUpdated());
+        verify(autoRepository, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(AutoChangedEvent.updated(List.of(1L, 2L)));
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#reprice} passi la percentuale al repository
+     * e confronti la marca in minuscolo.
+     */
+    @Test
+    void reprice_ShouldMultiplyPriceByPercentage() {
+        // Given
+        when(autoRepository.findIdsByMarcaForUpdate("fiat")).thenReturn(List.of(1L));
+        when(autoRepository.updatePrezzoByIdIn(List.of(1L), new BigDecimal("10"))).thenReturn(1);
+
+        // When
+        AutoBulkResultDTO result = autoService.reprice(new AutoRepriceRequestDTO("Fiat", new BigDecimal("10")));
+
+        // Then
+        assertEquals(1, result.getUpdated());
+        verify(eventPublisher, times(1)).publishEvent(AutoChangedEvent.updated(List.of(1L)));
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#reprice} fallisca, senza pubblicare eventi,
+     * se l'UPDATE non modifica esattamente le auto bloccate.
+     */
+    @Test
+    void reprice_ShouldFailWhenUpdatedRowsDifferFromLockedIds() {
+        // Given
+        when(autoRepository.findIdsByMarcaForUpdate("fiat")).thenReturn(List.of(1L, 2L));
+        when(autoRepository.updatePrezzoByIdIn(List.of(1L, 2L), new BigDecimal("10"))).thenReturn(1);
+
+        // When / Then
+        assertThrows(IllegalStateException.class,
+                () -> autoService.reprice(new AutoRepriceRequestDTO("Fiat", new BigDecimal("10"))));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#reprice} non esegua l'UPDATE né pubblichi eventi
+     * se la marca non ha auto.
+     */
+    @Test
+    void reprice_ShouldDoNothingForUnknownMarca() {
+        // Given
+        when(autoRepository.findIdsByMarcaForUpdate("lancia")).thenReturn(List.of());
+
+        // When
+        AutoBulkResultDTO result = autoService.reprice(new AutoRepriceRequestDTO("Lancia", new BigDecimal("-5")));
+
+        // Then
+        assertEquals(0, result.getUpdated());
+        verify(autoRepository, never()).updatePrezzoByIdIn(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#facets} sommi i gruppi per marca (senza distinzione
+     * tra maiuscole e minuscole), stato e fascia di prezzo.
+     */
+    @Test
+    void facets_ShouldMergeGroupsByMarcaStatoAndBucket() {
+        // Given
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        List<BigDecimal> limits = List.of(new BigDecimal("10000"));
+        when(autoSearchIndex.facets(criteria, limits)).thenReturn(Optional.empty());
+        when(autoRepository.facets(criteria, limits)).thenReturn(List.of(
+                new FacetGroup("Fiat", StatoAuto.DISPONIBILE, 3, new long[]{1, 2}),
+                new FacetGroup("FIAT", StatoAuto.VENDUTA, 2, new long[]{2, 0}),
+                new FacetGroup("Ford", StatoAuto.DISPONIBILE, 1, new long[]{0, 1})));
+
+        // When
+        AutoFacetsDTO facets = autoService.facets(criteria, limits);
+
+        // Then
+        assertEquals(6, facets.getTotal());
+        assertEquals(Map.of("FIAT", 5L, "Ford", 1L), facets.getMarca());
+        assertEquals(Map.of("DISPONIBILE", 4L, "VENDUTA", 2L), facets.getStato());
+        assertEquals(List.of(new AutoPrezzoBucketDTO(null, new BigDecimal("10000"), 3),
+                new AutoPrezzoBucketDTO(new BigDecimal("10000"), null, 3)), facets.getPrezzo());
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#facets} rifiuti limiti di prezzo non crescenti.
+     */
+    @Test
+    void facets_ShouldRejectUnorderedLimits() {
+        List<BigDecimal> limits = List.of(new BigDecimal("20000"), new BigDecimal("10000"));
+
+        assertThrows(InvalidQueryParameterException.class, () -> autoService.facets(new AutoSearchCriteriaDTO(), limits));
+        verifyNoInteractions(autoRepository);
+    }
+
+    /**
+     * Verifica che il metodo {@link AutoServiceImpl#search} senza conteggio non esegua la query di conteggio:
+     * il totale è approssimato finché esiste una pagina successiva ed esatto sull'ultima pagina.
+     */
+    @Test
+    void search_WithoutCount_ShouldMarkTotalApproximateUntilLastPage() {
+        // Given
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        PageRequest first = PageRequest.of(0, 1);
+        PageRequest last = PageRequest.of(3, 1);
+        when(autoSearchIndex.search(eq(criteria), any())).thenReturn(Optional.empty());
+        when(autoRepository.sliceResponses(criteria, first, AutoResponseDTO.FIELDS)).thenReturn(new SliceImpl<>(List.of(autoResponseDTO), first, true));
+        when(autoRepository.sliceResponses(criteria, last, AutoResponseDTO.FIELDS)).thenReturn(new SliceImpl<>(List.of(autoResponseDTO), last, false));
+
+        // When
+        AutoSearchPageDTO firstPage = (AutoSearchPageDTO) autoService.search(criteria, first, ConteggioTotale.NESSUNO, AutoResponseDTO.FIELDS);
+        AutoSearchPageDTO lastPage = (AutoSearchPageDTO) autoService.search(criteria, last, ConteggioTotale.NESSUNO, AutoResponseDTO.FIELDS);
+
+        // Then
+        assertTrue(firstPage.isTotalApproximate());
+        assertTrue(firstPage.hasNext());
+        assertEquals(2, firstPage.getTotalElements());
+        assertFalse(lastPage.isTotalApproximate());
+        assertFalse(lastPage.hasNext());
+        assertEquals(4, lastPage.getTotalElements());
+        verify(autoRepository, never()).countResponses(any());
+        verify(autoRepository, never()).searchResponses(any(), any(), any());
+    }
+
+    /**
+     * Verifica che senza conteggio esatto anche la pagina dell'indice sia un {@link AutoSearchPageDTO},
+     * con il totale esatto calcolato dall'indice: la risposta ha la stessa forma di quella del database.
+     */
+    @Test
+    void search_WithoutCount_ShouldWrapIndexedPage() {
+        // Given
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        PageRequest pageable = PageRequest.of(0, 1);
+        when(autoSearchIndex.search(criteria, pageable)).thenReturn(Optional.of(new PageImpl<>(List.of(autoResponseDTO), pageable, 4)));
+
+        // When
+        Page<AutoResponseDTO> result = autoService.search(criteria, pageable, ConteggioTotale.STIMATO, AutoResponseDTO.FIELDS);
+
+        // Then
+        AutoSearchPageDTO page = assertInstanceOf(AutoSearchPageDTO.class, result);
+        assertFalse(page.isTotalApproximate());
+        assertEquals(4, page.getTotalElements());
+        assertEquals(List.of(autoResponseDTO), page.getContent());
+        verifyNoInteractions(autoRepository);
+    }
+
+    /**
+     * Dall'indice in memoria le auto vengono copiate con i soli campi richiesti, senza interrogare il database.
+     */
+    @Test
+    void search_WithFields_ShouldTrimIndexedResults() {
+        // Given
+        AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO();
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(autoSearchIndex.search(criteria, pageable)).thenReturn(Optional.of(new PageImpl<>(List.of(autoResponseDTO), pageable, 1)));
+
+        // When
+        Page<AutoResponseDTO> result = autoService.search(criteria, pageable, ConteggioTotale.ESATTO,
+                AutoResponseDTO.fields(List.of("id", "stato")));
+
+        // Then
+        assertEquals(1, result.getTotalElements());
+        AutoResponseDTO auto = result.getContent().getFirst();
+        assertEquals(autoResponseDTO.getId(), auto.getId());
+        assertEquals(autoResponseDTO.getStato(), auto.getStato());
+        assertNull(auto.getMarca());
+        assertNull(auto.getPrezzo());
+        assertEquals(Set.of("id", "stato"), ((AutoResponseDTO.Projection) auto).getFields());
+        verifyNoInteractions(autoRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package com.autoxy.catalogo_auto.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import com.autoxy.catalogo_auto.DTO.AutoKeysetPageDTO;
+import com.autoxy.catalogo_auto.DTO.AutoResponseDTO;
+import com.autoxy.catalogo_auto.DTO.AutoSearchCriteriaDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe di test per {@link ReactiveAutoServiceImpl} con {@link AutoService} simulato da Mockito.
+ * Verifica che le pagine della ricerca vengano lette secondo la domanda del subscriber
+ * e che gli errori del service vengano propagati come segnali di errore.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveAutoServiceImplTest {
+
+    @Mock
+    private AutoService autoService;
+
+    @InjectMocks
+    private ReactiveAutoServiceImpl reactiveAutoService;
+
+    private final AutoSearchCriteriaDTO criteria = new AutoSearchCriteriaDTO("fiat", null, null, null, null, null, null);
+
+    @Test
+    void findById_ShouldEmitAuto() {
+        AutoResponseDTO auto = auto(1L);
+        when(autoService.findById(1L)).thenReturn(auto);
+
+        StepVerifier.create(reactiveAutoService.findById(1L))
+                .expectNext(auto)
+                .verifyComplete();
+    }
+
+    @Test
+    void findById_ShouldEmitErrorWhenNotFound() {
+        when(autoService.findById(99L)).thenThrow(new NoSuchElementException("Auto non trovata con ID: 99"));
+
+        StepVerifier.create(reactiveAutoService.findById(99L))
+                .expectError(NoSuchElementException.class)
+                .verify();
+    }
+
+    @Test
+    void findAll_ShouldEmitTheCatalogStream() {
+        when(autoService.streamAll()).thenReturn(Stream.of(auto(1L), auto(2L)));
+
+        StepVerifier.create(reactiveAutoService.findAll())
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    /**
+     * Verifica che con una sola auto richiesta venga letta al più una pagina oltre la prima,
+     * e che le pagine successive vengano lette solo all'arrivo di nuova domanda.
+     */
+    @Test
+    void search_ShouldReadPagesOnDemand() {
+        when(autoService.searchKeyset(criteria, "prezzo", Sort.Direction.ASC, 2, null))
+                .thenReturn(new AutoKeysetPageDTO(List.of(auto(1L), auto(2L)), 2, true, "c1"));
+        when(autoService.searchKeyset(criteria, "prezzo", Sort.Direction.ASC, 2, "c1"))
+                .thenReturn(new AutoKeysetPageDTO(List.of(auto(3L), auto(4L)), 2, true, "c2"));
+        when(autoService.searchKeyset(criteria, "prezzo", Sort.Direction.ASC, 2, "c2"))
+                .thenReturn(new AutoKeysetPageDTO(List.of(auto(5L)), 1, false, null));
+
+        StepVerifier.create(reactiveAutoService.search(criteria, "prezzo", Sort.Direction.ASC, 2), 1)
+                .expectNext(auto(1L))
+                .then(() -> verify(autoService, never()).searchKeyset(any(), any(), any(), anyInt(), eq("c2")))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(auto(2L), auto(3L), auto(4L), auto(5L))
+                .verifyComplete();
+
+        verify(autoService, times(3)).searchKeyset(any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void search_ShouldEmitErrorWhenNothingMatches() {
+        when(autoService.searchKeyset(criteria, "id", Sort.Direction.ASC, 100, null))
+                .thenThrow(new NoSuchElementException("Nessuna auto trovata con i criteri di ricerca specificati."));
+
+        StepVerifier.create(reactiveAutoService.search(criteria, "id", Sort.Direction.ASC, 100))
+                .expectError(NoSuchElementException.class)
+                .verify();
+    }
+
+    /**
+     * Verifica che la ricerca termini senza errore se le auto rimanenti sono state eliminate
+     * tra la lettura di una pagina e la successiva.
+     */
+    @Test
+    void search_ShouldCompleteWhenRemainingAutosWereDeleted() {
+        when(autoService.searchKeyset(eq(criteria), eq("id"), eq(Sort.Direction.ASC), eq(1), isNull()))
+                .thenReturn(new AutoKeysetPageDTO(List.of(auto(1L)), 1, true, "c1"));
+        when(autoService.searchKeyset(criteria, "id", Sort.Direction.ASC, 1, "c1"))
+                .thenThrow(new NoSuchElementException("Nessuna auto trovata con i criteri di ricerca specificati."));
+
+        StepVerifier.create(reactiveAutoService.search(criteria, "id", Sort.Direction.ASC, 1))
+                .expectNext(auto(1L))
+                .verifyComplete();
+    }
+
+    private static AutoResponseDTO auto(Long id) {
+        return new AutoResponseDTO(id, "Fiat", "Panda", 2020, BigDecimal.valueOf(10000 + id), "DISPONIBILE", 0L);
+    }
+}